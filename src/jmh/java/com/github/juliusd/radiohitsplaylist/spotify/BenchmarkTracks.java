@@ -0,0 +1,43 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/** Generates reproducible radio tracks which look like the ones of the real radio stations. */
+final class BenchmarkTracks {
+
+  private static final String[] ARTISTS = {
+    "Udo Lindenberg & Apache 207",
+    "Miley Cyrus",
+    "David Guetta, Bebe Rexha",
+    "Peter Fox feat. Inéz",
+    "Ñengo Flow x Bad Bunny",
+    "Herbert Grönemeyer",
+    "Ed Sheeran",
+    "Tiësto & Karol G"
+  };
+  private static final String[] TITLES = {
+    "Komet", "Flowers", "I'm Good (Blue)", "Zukunft Pink", "Mensch", "Shivers", "Don't Be Shy"
+  };
+
+  private BenchmarkTracks() {}
+
+  /** Every track is unique, a numeric suffix keeps artist and title realistic. */
+  static List<Track> tracks(int count) {
+    Random random = new Random(42);
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                new Track(
+                    TITLES[random.nextInt(TITLES.length)] + " " + i,
+                    ARTISTS[random.nextInt(ARTISTS.length)]))
+        .toList();
+  }
+
+  static URI uri(int index) {
+    return URI.create("spotify:track:" + String.format("%022d", index));
+  }
+}
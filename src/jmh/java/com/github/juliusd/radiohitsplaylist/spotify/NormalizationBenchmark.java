@@ -0,0 +1,87 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time taken by the artist/title normalization and match scoring done for every search result. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizationBenchmark {
+
+  private List<Track> tracks;
+  private List<SpotifyTrack> spotifyTracks;
+
+  @Setup
+  public void setUp() {
+    tracks = BenchmarkTracks.tracks(1000);
+    spotifyTracks =
+        tracks.stream()
+            .map(
+                track ->
+                    new SpotifyTrack(
+                        track.title().toUpperCase(),
+                        List.of(track.artist().split(" & ")),
+                        BenchmarkTracks.uri(0),
+                        null))
+            .toList();
+  }
+
+  @Benchmark
+  public void normalizeArtist(Blackhole blackhole) {
+    for (Track track : tracks) {
+      blackhole.consume(TrackNormalizer.normalizeArtist(track.artist()));
+    }
+  }
+
+  /** The chain of regular expressions used before {@link TrackNormalizer}, as baseline. */
+  @Benchmark
+  public void normalizeArtistWithRegularExpressions(Blackhole blackhole) {
+    for (Track track : tracks) {
+      blackhole.consume(
+          track
+              .artist()
+              .toLowerCase()
+              .replaceAll(",", " ")
+              .replaceAll("&", " ")
+              .replaceAll(" x ", " ")
+              .replaceAll(" feat ", " ")
+              .replaceAll(" featuring ", " ")
+              .replaceAll(" ft ", " ")
+              .replaceAll(" ft. ", " ")
+              .replaceAll(" feat. ", " ")
+              .replaceAll(" featuring. ", " ")
+              .replaceAll("\\s+", " ")
+              .trim());
+    }
+  }
+
+  @Benchmark
+  public void normalizeTitle(Blackhole blackhole) {
+    for (Track track : tracks) {
+      blackhole.consume(TrackNormalizer.normalizeTitle(track.title()));
+    }
+  }
+
+  @Benchmark
+  public void scoreMatch(Blackhole blackhole) {
+    for (int i = 0; i < tracks.size(); i++) {
+      blackhole.consume(MatchScorer.score(tracks.get(i), spotifyTracks.get(i)));
+    }
+  }
+}
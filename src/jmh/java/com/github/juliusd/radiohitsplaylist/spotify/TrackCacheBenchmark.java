@@ -0,0 +1,110 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Lookup and insert time of each track cache backend filled with a realistic number of tracks. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackCacheBenchmark {
+
+  private static final int PLAYLIST_SIZE = 200;
+  private static final int INSERT_BATCH_SIZE = 100;
+
+  @Param({"20000"})
+  int cacheSize;
+
+  @Param({"sqlite", "append-log"})
+  String backend;
+
+  private Path directory;
+  private TrackCache trackCache;
+  private List<Track> tracks;
+  private List<Track> playlist;
+  private int nextTrack;
+  private int nextNewTrack;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("track-cache-benchmark");
+    trackCache =
+        switch (backend) {
+          case "sqlite" -> new SqliteTrackCache(directory.resolve("track_cache.db").toString());
+          case "append-log" ->
+              new AppendLogTrackCache(directory.resolve("track_cache.log").toString());
+          default -> throw new IllegalArgumentException("Unknown backend " + backend);
+        };
+    tracks = BenchmarkTracks.tracks(cacheSize);
+    for (int i = 0; i < tracks.size(); i++) {
+      trackCache.storeTrack(tracks.get(i), BenchmarkTracks.uri(i));
+    }
+    trackCache.flush();
+    // a playlist mostly hits the cache, a few tracks are new
+    playlist =
+        Stream.concat(
+                tracks.subList(0, PLAYLIST_SIZE - 10).stream(),
+                BenchmarkTracks.tracks(cacheSize + 10).subList(cacheSize, cacheSize + 10).stream())
+            .toList();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    trackCache.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public Optional<URI> findTrack() {
+    Track track = tracks.get(nextTrack);
+    nextTrack = (nextTrack + 7919) % tracks.size();
+    return trackCache.findTrack(track);
+  }
+
+  @Benchmark
+  public Map<Track, URI> findTracksOfPlaylist() {
+    return trackCache.findTracks(playlist, 0.0);
+  }
+
+  /** Stores a batch of tracks which are not yet cached, as after searching a new playlist. */
+  @Benchmark
+  public void storeTracks() {
+    for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+      Track track = tracks.get(nextNewTrack % tracks.size());
+      trackCache.storeTrack(
+          new Track(track.title() + " (Remix " + nextNewTrack + ")", track.artist()),
+          BenchmarkTracks.uri(nextNewTrack));
+      nextNewTrack++;
+    }
+    trackCache.flush();
+  }
+}
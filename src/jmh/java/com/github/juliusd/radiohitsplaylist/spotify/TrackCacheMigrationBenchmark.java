@@ -0,0 +1,101 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to upgrade a large cache file written before the schema was versioned to the current schema.
+ * Every invocation migrates a fresh copy of the same file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrackCacheMigrationBenchmark {
+
+  @Param({"200000"})
+  int cacheSize;
+
+  private Path directory;
+  private Path unversionedDatabase;
+  private Path database;
+
+  @Setup(Level.Trial)
+  public void createUnversionedDatabase() throws IOException, SQLException {
+    directory = Files.createTempDirectory("track-cache-migration-benchmark");
+    unversionedDatabase = directory.resolve("unversioned_track_cache.db");
+    database = directory.resolve("track_cache.db");
+    List<Track> tracks = BenchmarkTracks.tracks(cacheSize);
+    try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + unversionedDatabase);
+        Statement stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE tracks (id INTEGER PRIMARY KEY AUTOINCREMENT, artist TEXT NOT NULL, title"
+              + " TEXT NOT NULL, spotify_uri TEXT NOT NULL, created_at DATETIME DEFAULT"
+              + " CURRENT_TIMESTAMP, UNIQUE(artist, title))");
+      stmt.execute("CREATE INDEX idx_artist_title ON tracks(artist, title)");
+      connection.setAutoCommit(false);
+      try (PreparedStatement insert =
+          connection.prepareStatement(
+              "INSERT INTO tracks (artist, title, spotify_uri) VALUES (?, ?, ?)")) {
+        for (int i = 0; i < tracks.size(); i++) {
+          insert.setString(1, tracks.get(i).artist());
+          insert.setString(2, tracks.get(i).title());
+          insert.setString(3, BenchmarkTracks.uri(i).toString());
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
+      connection.commit();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void copyUnversionedDatabase() throws IOException {
+    Files.deleteIfExists(Path.of(database + "-wal"));
+    Files.deleteIfExists(Path.of(database + "-shm"));
+    Files.copy(unversionedDatabase, database, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public long migrate() {
+    try (TrackCache trackCache = new SqliteTrackCache(database.toString())) {
+      return trackCache.getCacheSize();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.monitoring.NoOpNotifier;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.michaelthelin.spotify.SpotifyApi;
+
+/**
+ * Resolves a whole playlist through {@link PlaylistUpdater} against a Spotify API stubbed with
+ * WireMock, once with an empty and once with a warm track cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackResolutionBenchmark {
+
+  private static final String SEARCH_RESPONSE =
+      """
+      {
+        "tracks": {
+          "limit": 5, "next": null, "offset": 0, "previous": null, "total": 1,
+          "items": [
+            {
+              "album": {
+                "album_type": "single", "id": "2XWoQ5VUcmGYL1025mZ5dO", "name": "Komet",
+                "images": [{"url": "https://i.scdn.co/image/ab67616d00001e02", "height": 300, "width": 300}],
+                "artists": [{"id": "7iWcRnQMinCoV2u5ICgsW0", "name": "Udo Lindenberg", "type": "artist"}],
+                "type": "album", "uri": "spotify:album:2XWoQ5VUcmGYL1025mZ5dO"
+              },
+              "artists": [{"id": "7iWcRnQMinCoV2u5ICgsW0", "name": "Udo Lindenberg", "type": "artist"}],
+              "id": "6ogB5rlpNsV4ntsvK5AHe5", "name": "Komet", "type": "track",
+              "uri": "spotify:track:6ogB5rlpNsV4ntsvK5AHe5"
+            }
+          ]
+        }
+      }
+      """;
+
+  @Param({"100"})
+  int playlistSize;
+
+  @Param({"true", "false"})
+  boolean warmCache;
+
+  private WireMockServer wireMockServer;
+  private Path directory;
+  private TrackCache trackCache;
+  private PlaylistFingerprintStore fingerprintStore;
+  private ExecutorService searchExecutor;
+  private SpotifyApi spotifyApi;
+  private SpotifyRequestExecutor requestExecutor;
+  private List<Track> playlist;
+  private PlaylistUpdater playlistUpdater;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    wireMockServer = new WireMockServer(options().dynamicPort().disableRequestJournal());
+    wireMockServer.start();
+    wireMockServer.stubFor(get(urlPathEqualTo("/v1/search")).willReturn(okJson(SEARCH_RESPONSE)));
+
+    spotifyApi =
+        new SpotifyApi.Builder()
+            .setScheme("http")
+            .setHost("localhost")
+            .setPort(wireMockServer.port())
+            .setAccessToken("benchmarkAccessToken")
+            .build();
+    requestExecutor = new SpotifyRequestExecutor(1_000_000, 1_000_000, 0, Duration.ZERO);
+    directory = Files.createTempDirectory("track-resolution-benchmark");
+    trackCache = new SqliteTrackCache(directory.resolve("track_cache.db").toString());
+    fingerprintStore =
+        new PlaylistFingerprintStore(directory.resolve("playlist_fingerprints.db").toString());
+    searchExecutor = Executors.newFixedThreadPool(4);
+    playlist = BenchmarkTracks.tracks(playlistSize);
+    if (warmCache) {
+      for (int i = 0; i < playlist.size(); i++) {
+        trackCache.storeTrack(playlist.get(i), BenchmarkTracks.uri(i));
+      }
+      trackCache.flush();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpInvocation() {
+    if (!warmCache) {
+      trackCache.clearCache();
+    }
+    // a fresh memory tier, so every invocation reads from SQLite or Spotify
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 5000, Duration.ZERO, 0.0, new NoOpNotifier());
+    playlistUpdater =
+        new PlaylistUpdater(
+            new TrackFinder(spotifyApi, requestExecutor),
+            tieredTrackCache,
+            searchExecutor,
+            new PlaylistWriter(spotifyApi, requestExecutor, searchExecutor),
+            fingerprintStore);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    searchExecutor.shutdownNow();
+    trackCache.close();
+    fingerprintStore.close();
+    wireMockServer.stop();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<URI> resolvePlaylist() {
+    return playlistUpdater.findSpotifyTrackIds(playlist);
+  }
+}
@@ -0,0 +1,34 @@
+package com.github.juliusd.radiohitsplaylist;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/** Waits for the results of tasks which were submitted to an executor. */
+public final class Futures {
+
+  private Futures() {}
+
+  /**
+   * Waits for the task and rethrows an unchecked failure of it as it is, so callers see the same
+   * exception as if the task had run in their own thread.
+   *
+   * @param exceptionFactory Creates the exception thrown for a checked failure of the task or for
+   *     an interruption of the waiting thread, which keeps its interrupt flag
+   * @return The result of the task
+   */
+  public static <T> T await(
+      Future<T> future, Function<Throwable, ? extends RuntimeException> exceptionFactory) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw exceptionFactory.apply(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw exceptionFactory.apply(e.getCause());
+    }
+  }
+}
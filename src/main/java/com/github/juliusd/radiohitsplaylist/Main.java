@@ -2,12 +2,14 @@ package com.github.juliusd.radiohitsplaylist;
 
 import static com.github.juliusd.radiohitsplaylist.Logger.log;
 
+import com.github.juliusd.radiohitsplaylist.TaskScheduler.Task;
 import com.github.juliusd.radiohitsplaylist.config.ConfigLoader;
 import com.github.juliusd.radiohitsplaylist.config.Configuration;
 import com.github.juliusd.radiohitsplaylist.config.ReCreateBerlinHitRadioPlaylistTaskConfiguration;
 import com.github.juliusd.radiohitsplaylist.config.ReCreateBundesmuxPlaylistTaskConfiguration;
 import com.github.juliusd.radiohitsplaylist.config.ReCreateFamilyRadioPlaylistTaskConfiguration;
 import com.github.juliusd.radiohitsplaylist.config.ReCreateYoungPeoplePlaylistTaskConfiguration;
+import com.github.juliusd.radiohitsplaylist.config.TrackCacheConfiguration;
 import com.github.juliusd.radiohitsplaylist.monitoring.CompositeNotifier;
 import com.github.juliusd.radiohitsplaylist.monitoring.GotifyClientConfiguration;
 import com.github.juliusd.radiohitsplaylist.monitoring.LoggingNotifier;
@@ -23,15 +25,29 @@ import com.github.juliusd.radiohitsplaylist.source.family.FamilyRadioClientConfi
 import com.github.juliusd.radiohitsplaylist.source.family.FamilyRadioLoader;
 import com.github.juliusd.radiohitsplaylist.source.youngpeople.YoungPeopleClientConfiguration;
 import com.github.juliusd.radiohitsplaylist.source.youngpeople.YoungPeopleLoader;
+import com.github.juliusd.radiohitsplaylist.spotify.PlaylistFingerprintStore;
 import com.github.juliusd.radiohitsplaylist.spotify.PlaylistShuffel;
 import com.github.juliusd.radiohitsplaylist.spotify.PlaylistUpdater;
+import com.github.juliusd.radiohitsplaylist.spotify.PlaylistWriter;
+import com.github.juliusd.radiohitsplaylist.spotify.QueryVariant;
 import com.github.juliusd.radiohitsplaylist.spotify.SpotifyApiConfiguration;
+import com.github.juliusd.radiohitsplaylist.spotify.SpotifyRequestExecutor;
+import com.github.juliusd.radiohitsplaylist.spotify.TieredTrackCache;
 import com.github.juliusd.radiohitsplaylist.spotify.TrackCache;
+import com.github.juliusd.radiohitsplaylist.spotify.TrackCacheRevalidator;
 import com.github.juliusd.radiohitsplaylist.spotify.TrackFinder;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Main {
 
+  private static final int SOURCE_REQUEST_CONCURRENCY = 4;
+
   public static void main(String[] args) {
 
     var configuration = new ConfigLoader().loadConfig(System.getProperty("configFilePath"));
@@ -39,12 +55,37 @@ public class Main {
     try {
       notifier.runStarted();
 
-      var trackCache = new TrackCache("track_cache.db");
-      notifier.recordInitialCacheSize(trackCache.getCacheSize());
+      var trackCacheConfiguration = configuration.trackCache();
+      try (var trackCache = TrackCache.open(trackCacheConfiguration.backend());
+          var fingerprintStore = new PlaylistFingerprintStore("playlist_fingerprints.db")) {
+        notifier.recordInitialCacheSize(trackCache.getCacheSize());
+
+        var tieredTrackCache =
+            new TieredTrackCache(
+                trackCache,
+                trackCacheConfiguration.memoryCacheSize(),
+                Duration.ofDays(trackCacheConfiguration.negativeCacheTtlDays()),
+                trackCacheConfiguration.minMatchConfidence(),
+                notifier);
+        if (trackCacheConfiguration.preloadMemoryCache()) {
+          log("Preloaded " + tieredTrackCache.preload() + " tracks into the memory cache");
+        }
+        if (trackCacheConfiguration.preloadHotSetSize() > 0) {
+          int preloaded =
+              tieredTrackCache.preloadHotSet(trackCacheConfiguration.preloadHotSetSize());
+          log("Preloaded " + preloaded + " frequently played tracks into the memory cache");
+        }
 
-      executePlaylistTasks(configuration, notifier, trackCache);
+        executePlaylistTasks(
+            configuration, notifier, trackCache, tieredTrackCache, fingerprintStore);
 
-      notifier.recordFinalCacheSize(trackCache.getCacheSize());
+        // recorded before the eviction, so the statistics count all tracks added by this run
+        notifier.recordFinalCacheSize(trackCache.getCacheSize());
+        if (trackCacheConfiguration.maxSize() > 0) {
+          int evicted = trackCache.evictLeastRecentlyUsed(trackCacheConfiguration.maxSize());
+          log("Evicted " + evicted + " least recently used tracks from the cache");
+        }
+      }
 
       notifier.runFinished();
     } catch (Exception e) {
@@ -54,14 +95,80 @@ public class Main {
   }
 
   private static void executePlaylistTasks(
-      Configuration configuration, Notifier notifier, TrackCache trackCache) {
+      Configuration configuration,
+      Notifier notifier,
+      TrackCache databaseTrackCache,
+      TieredTrackCache trackCache,
+      PlaylistFingerprintStore fingerprintStore) {
+    var searchExecutor = Executors.newFixedThreadPool(configuration.trackSearch().concurrency());
+    // only used by the parallel search mode, in which every search sends all its queries at once
+    var queryExecutor =
+        Executors.newFixedThreadPool(
+            configuration.trackSearch().concurrency() * QueryVariant.values().length);
+    var revalidationExecutor = Executors.newSingleThreadExecutor();
+    var descriptionExecutor = Executors.newCachedThreadPool();
+    // loads the pages of the radio sources, bounded to not flood their sites with requests
+    var sourceExecutor = Executors.newFixedThreadPool(SOURCE_REQUEST_CONCURRENCY);
+    try {
+      executePlaylistTasks(
+          configuration,
+          notifier,
+          databaseTrackCache,
+          trackCache,
+          fingerprintStore,
+          searchExecutor,
+          queryExecutor,
+          revalidationExecutor,
+          descriptionExecutor,
+          sourceExecutor);
+    } finally {
+      // no interrupts, as an interrupted write closes the channel of the append-log track cache
+      searchExecutor.shutdown();
+      queryExecutor.shutdown();
+      revalidationExecutor.shutdown();
+      descriptionExecutor.shutdown();
+      sourceExecutor.shutdown();
+    }
+  }
+
+  private static void executePlaylistTasks(
+      Configuration configuration,
+      Notifier notifier,
+      TrackCache databaseTrackCache,
+      TieredTrackCache trackCache,
+      PlaylistFingerprintStore fingerprintStore,
+      ExecutorService searchExecutor,
+      ExecutorService queryExecutor,
+      ExecutorService revalidationExecutor,
+      ExecutorService descriptionExecutor,
+      ExecutorService sourceExecutor) {
     var spotifyApi = new SpotifyApiConfiguration().spotifyApi(configuration);
-    var playlistShuffel = new PlaylistShuffel(spotifyApi);
+    var requestExecutor = new SpotifyRequestExecutor(configuration.spotifyRequests());
+    Future<?> revalidation =
+        startRevalidation(
+            configuration.trackCache(),
+            new TrackCacheRevalidator(
+                spotifyApi,
+                requestExecutor,
+                databaseTrackCache,
+                Duration.ofDays(configuration.trackCache().revalidateAfterDays()),
+                configuration.trackCache().maxRevalidationsPerRun()),
+            revalidationExecutor);
+    var playlistShuffel = new PlaylistShuffel(spotifyApi, requestExecutor);
+    var playlistWriter = new PlaylistWriter(spotifyApi, requestExecutor, descriptionExecutor);
     var playlistUpdater =
-        new PlaylistUpdater(spotifyApi, new TrackFinder(spotifyApi), trackCache, notifier);
-    var soundgraphSpotifyWrapper = new SoundgraphSpotifyWrapper(spotifyApi);
+        new PlaylistUpdater(
+            new TrackFinder(
+                spotifyApi, requestExecutor, configuration.trackSearch(), queryExecutor),
+            trackCache,
+            searchExecutor,
+            playlistWriter,
+            fingerprintStore);
+    var soundgraphSpotifyWrapper =
+        new SoundgraphSpotifyWrapper(spotifyApi, requestExecutor, playlistWriter);
     var soundgraphService = new SoundgraphService(soundgraphSpotifyWrapper);
 
+    // shuffles run first and one after another, and a failing one still aborts the run
     configuration
         .shuffleTasks()
         .forEach(
@@ -70,93 +177,149 @@ public class Main {
                   shuffleTaskConfiguration.playlistId(), notifier);
             });
 
-    // Family Radio tasks
-    try {
-      if (!configuration.reCreateFamilyRadioPlaylistTasks().isEmpty()) {
-        var familyRadioLoader =
-            new FamilyRadioClientConfiguration(configuration).familyRadioLoader();
-        configuration
-            .reCreateFamilyRadioPlaylistTasks()
-            .forEach(
-                task -> {
-                  refreshFamilyPlaylistFromSource(
-                      familyRadioLoader, playlistUpdater, task, notifier);
-                });
-      }
-    } catch (Exception e) {
-      notifier.runFailed("Family Radio tasks", e);
-    }
+    var taskExecution = configuration.taskExecution();
+    var taskScheduler =
+        new TaskScheduler(
+            taskExecution.maxConcurrentTasks(),
+            taskExecution.maxConcurrentTasksPerGroup(),
+            notifier);
 
-    // Berlin Hit Radio tasks
-    try {
-      if (!configuration.reCreateBerlinHitRadioPlaylistTasks().isEmpty()) {
-        var berlinHitRadioLoader = new BerlinHitRadioClientConfiguration().berlinHitRadioLoader();
-        configuration
-            .reCreateBerlinHitRadioPlaylistTasks()
-            .forEach(
-                task -> {
-                  refreshPlaylistFromSource(berlinHitRadioLoader, playlistUpdater, task, notifier);
-                });
-      }
-    } catch (Exception e) {
-      notifier.runFailed("Berlin Hit Radio tasks", e);
-    }
+    taskScheduler.addTaskGroup(
+        "Family Radio tasks",
+        () -> {
+          if (configuration.reCreateFamilyRadioPlaylistTasks().isEmpty()) {
+            return List.of();
+          }
+          var familyRadioLoader =
+              new FamilyRadioClientConfiguration(configuration).familyRadioLoader();
+          return configuration.reCreateFamilyRadioPlaylistTasks().stream()
+              .map(
+                  task ->
+                      new Task(
+                          task.streamName(),
+                          () ->
+                              refreshFamilyPlaylistFromSource(
+                                  familyRadioLoader, playlistUpdater, task, notifier)))
+              .toList();
+        });
 
-    // Young People tasks
-    try {
-      if (!configuration.reCreateYoungPeoplePlaylistTasks().isEmpty()) {
-        var youngPeopleLoader =
-            new YoungPeopleClientConfiguration(configuration).youngPeopleLoader();
-        configuration
-            .reCreateYoungPeoplePlaylistTasks()
-            .forEach(
-                task -> {
-                  refreshYoungPeoplePlaylistFromSource(
-                      youngPeopleLoader, playlistUpdater, task, notifier);
-                });
-      }
-    } catch (Exception e) {
-      notifier.runFailed("Young People tasks", e);
-    }
+    taskScheduler.addTaskGroup(
+        "Berlin Hit Radio tasks",
+        () -> {
+          if (configuration.reCreateBerlinHitRadioPlaylistTasks().isEmpty()) {
+            return List.of();
+          }
+          var berlinHitRadioLoader =
+              new BerlinHitRadioClientConfiguration().berlinHitRadioLoader(sourceExecutor);
+          return configuration.reCreateBerlinHitRadioPlaylistTasks().stream()
+              .map(
+                  task ->
+                      new Task(
+                          task.streamName(),
+                          () ->
+                              refreshPlaylistFromSource(
+                                  berlinHitRadioLoader, playlistUpdater, task, notifier)))
+              .toList();
+        });
 
-    // Bundesmux tasks
-    try {
-      if (!configuration.reCreateBundesmuxPlaylistTasks().isEmpty()) {
-        var bundesmuxLoader = new BundesmuxClientConfiguration(configuration).bundesmuxLoader();
-        configuration
-            .reCreateBundesmuxPlaylistTasks()
-            .forEach(
-                task -> {
-                  refreshBundesmuxPlaylistFromSource(
-                      bundesmuxLoader, playlistUpdater, task, notifier);
-                });
-      }
-    } catch (Exception e) {
-      notifier.runFailed("Bundesmux tasks", e);
+    taskScheduler.addTaskGroup(
+        "Young People tasks",
+        () -> {
+          if (configuration.reCreateYoungPeoplePlaylistTasks().isEmpty()) {
+            return List.of();
+          }
+          var youngPeopleLoader =
+              new YoungPeopleClientConfiguration(configuration).youngPeopleLoader();
+          return configuration.reCreateYoungPeoplePlaylistTasks().stream()
+              .map(
+                  task ->
+                      new Task(
+                          task.programName(),
+                          () ->
+                              refreshYoungPeoplePlaylistFromSource(
+                                  youngPeopleLoader, playlistUpdater, task, notifier)))
+              .toList();
+        });
+
+    taskScheduler.addTaskGroup(
+        "Bundesmux tasks",
+        () -> {
+          if (configuration.reCreateBundesmuxPlaylistTasks().isEmpty()) {
+            return List.of();
+          }
+          var bundesmuxLoader =
+              new BundesmuxClientConfiguration(configuration).bundesmuxLoader(sourceExecutor);
+          return configuration.reCreateBundesmuxPlaylistTasks().stream()
+              .map(
+                  task ->
+                      new Task(
+                          task.streamName(),
+                          () ->
+                              refreshBundesmuxPlaylistFromSource(
+                                  bundesmuxLoader, playlistUpdater, task, notifier)))
+              .toList();
+        });
+
+    taskScheduler.addTaskGroup(
+        "Soundgraph tasks",
+        () ->
+            configuration.soundgraphTasks().stream()
+                .map(
+                    task ->
+                        new Task(
+                            task.name(),
+                            () -> {
+                              try {
+                                List<SoundgraphSong> tracks =
+                                    soundgraphService.processSoundgraphConfig(task);
+                                notifier.recordSoundgraphExecuted(task.name(), tracks.size());
+                                log(
+                                    "Processed Soundgraph task for playlist "
+                                        + task.name()
+                                        + " with "
+                                        + tracks.size()
+                                        + " tracks");
+                              } catch (Exception e) {
+                                throw new RuntimeException(
+                                    "Failed to process Soundgraph task for playlist " + task.name(),
+                                    e);
+                              }
+                            }))
+                .toList());
+
+    taskScheduler.run();
+    awaitRevalidation(revalidation);
+
+    log(
+        "Spotify requests: "
+            + requestExecutor.getRequestCount()
+            + ", rate limited: "
+            + requestExecutor.getRateLimitedResponseCount()
+            + ", throttled for "
+            + requestExecutor.getThrottledTime().toMillis()
+            + "ms");
+  }
+
+  /** Rechecks stale cache entries in the background while the playlist tasks run. */
+  private static Future<?> startRevalidation(
+      TrackCacheConfiguration trackCacheConfiguration,
+      TrackCacheRevalidator revalidator,
+      ExecutorService revalidationExecutor) {
+    if (trackCacheConfiguration.revalidateAfterDays() <= 0
+        || trackCacheConfiguration.maxRevalidationsPerRun() <= 0) {
+      return CompletableFuture.completedFuture(null);
     }
+    return revalidationExecutor.submit(revalidator::revalidate);
+  }
 
-    // Soundgraph tasks
+  /** A failed revalidation only delays it to the next run, so it does not fail this one. */
+  private static void awaitRevalidation(Future<?> revalidation) {
     try {
-      configuration
-          .soundgraphTasks()
-          .forEach(
-              task -> {
-                try {
-                  List<SoundgraphSong> tracks = soundgraphService.processSoundgraphConfig(task);
-                  notifier.recordSoundgraphExecuted(task.name(), tracks.size());
-                  log(
-                      "Processed Soundgraph task for playlist "
-                          + task.name()
-                          + " with "
-                          + tracks.size()
-                          + " tracks");
-                } catch (Exception e) {
-                  throw new RuntimeException(
-                      "Failed to process Soundgraph task for playlist " + task.name(), e);
-                }
-              });
-    } catch (Exception e) {
-      notifier.runFailed("Soundgraph tasks", e);
+      revalidation.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log("Failed to revalidate the track cache: " + e.getCause().getMessage());
     }
   }
 
@@ -174,7 +337,8 @@ public class Main {
       PlaylistUpdater playlistUpdater,
       ReCreateBerlinHitRadioPlaylistTaskConfiguration configuration,
       Notifier notifier) {
-    List<Track> tracks = berlinHitRadioLoader.load(configuration.streamName());
+    List<Track> tracks =
+        berlinHitRadioLoader.load(configuration.streamName(), configuration.hours());
     playlistUpdater.update(tracks, configuration.playlistId(), configuration.descriptionPrefix());
     notifier.recordPlaylistRefresh(configuration.streamName(), tracks.size());
     log("Refreshed " + configuration.streamName() + " with " + tracks.size() + " tracks");
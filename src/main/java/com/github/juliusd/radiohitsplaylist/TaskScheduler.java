@@ -0,0 +1,105 @@
+package com.github.juliusd.radiohitsplaylist;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs groups of independent tasks concurrently.
+ *
+ * <p>At most {@code maxConcurrentTasks} tasks run at once overall and at most {@code
+ * maxConcurrentTasksPerGroup} of the same group, so a single upstream site is not hit by too many
+ * requests in parallel. The first failing task of a group is reported via {@link
+ * Notifier#runFailed(String, Throwable)} and stops the remaining tasks of that group, other groups
+ * are not affected. The duration of every task is reported via {@link
+ * Notifier#recordTaskDuration(String, Duration)}.
+ */
+class TaskScheduler {
+
+  private final int maxConcurrentTasks;
+  private final int maxConcurrentTasksPerGroup;
+  private final Notifier notifier;
+  private final List<TaskGroup> taskGroups = new ArrayList<>();
+
+  TaskScheduler(int maxConcurrentTasks, int maxConcurrentTasksPerGroup, Notifier notifier) {
+    this.maxConcurrentTasks = maxConcurrentTasks;
+    this.maxConcurrentTasksPerGroup = maxConcurrentTasksPerGroup;
+    this.notifier = notifier;
+  }
+
+  /**
+   * @param taskGroupName Name used when reporting a failure of the group
+   * @param tasks Creates the tasks of the group when the scheduler runs; a failure is reported as
+   *     failure of the group
+   */
+  void addTaskGroup(String taskGroupName, Supplier<List<Task>> tasks) {
+    taskGroups.add(new TaskGroup(taskGroupName, tasks));
+  }
+
+  /** Runs all added task groups and blocks until every task has finished. */
+  void run() {
+    ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentTasks);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (TaskGroup taskGroup : taskGroups) {
+        List<Task> tasks;
+        try {
+          tasks = taskGroup.tasks().get();
+        } catch (Exception e) {
+          notifier.runFailed(taskGroup.name(), e);
+          continue;
+        }
+
+        // each worker runs the tasks of its group one after another
+        Queue<Task> pendingTasks = new ConcurrentLinkedQueue<>(tasks);
+        AtomicBoolean groupFailed = new AtomicBoolean();
+        int workerCount = Math.min(maxConcurrentTasksPerGroup, tasks.size());
+        for (int i = 0; i < workerCount; i++) {
+          workers.add(executor.submit(() -> runTasks(taskGroup.name(), pendingTasks, groupFailed)));
+        }
+      }
+      awaitAll(workers);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void runTasks(String taskGroupName, Queue<Task> pendingTasks, AtomicBoolean groupFailed) {
+    Task task;
+    while (!groupFailed.get() && (task = pendingTasks.poll()) != null) {
+      long start = System.nanoTime();
+      try {
+        task.action().run();
+      } catch (Exception e) {
+        if (groupFailed.compareAndSet(false, true)) {
+          notifier.runFailed(taskGroupName, e);
+        } else {
+          log("Another task failed in " + taskGroupName + ": " + e.getMessage());
+        }
+      } finally {
+        notifier.recordTaskDuration(task.name(), Duration.ofNanos(System.nanoTime() - start));
+      }
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> workers) {
+    for (Future<?> worker : workers) {
+      // runTasks catches task failures, so a failed worker is a bug in the scheduler itself
+      Futures.await(worker, cause -> new IllegalStateException("Failed to run tasks", cause));
+    }
+  }
+
+  record Task(String name, Runnable action) {}
+
+  private record TaskGroup(String name, Supplier<List<Task>> tasks) {}
+}
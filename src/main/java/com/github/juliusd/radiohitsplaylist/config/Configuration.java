@@ -13,4 +13,24 @@ public record Configuration(
     String bundesmuxUrl,
     List<ReCreateBundesmuxPlaylistTaskConfiguration> reCreateBundesmuxPlaylistTasks,
     List<SoundgraphConfig> soundgraphTasks,
-    NotifierConfiguration gotify) {}
+    NotifierConfiguration gotify,
+    TrackCacheConfiguration trackCache,
+    TrackSearchConfiguration trackSearch,
+    TaskExecutionConfiguration taskExecution,
+    SpotifyRequestConfiguration spotifyRequests) {
+
+  public Configuration {
+    if (trackCache == null) {
+      trackCache = TrackCacheConfiguration.defaults();
+    }
+    if (trackSearch == null) {
+      trackSearch = TrackSearchConfiguration.defaults();
+    }
+    if (taskExecution == null) {
+      taskExecution = TaskExecutionConfiguration.defaults();
+    }
+    if (spotifyRequests == null) {
+      spotifyRequests = SpotifyRequestConfiguration.defaults();
+    }
+  }
+}
@@ -1,4 +1,22 @@
 package com.github.juliusd.radiohitsplaylist.config;
 
+import java.util.List;
+
+/**
+ * @param hours Hours of the previous day whose played tracks are loaded, each one a separate
+ *     request; defaults to 6, 9, 12 and 15
+ */
 public record ReCreateBerlinHitRadioPlaylistTaskConfiguration(
-    String streamName, String playlistId, String descriptionPrefix) {}
+    String streamName, String playlistId, String descriptionPrefix, List<Integer> hours) {
+
+  public ReCreateBerlinHitRadioPlaylistTaskConfiguration {
+    if (hours == null || hours.isEmpty()) {
+      hours = List.of(6, 9, 12, 15);
+    }
+    if (hours.stream().anyMatch(hour -> hour == null || hour < 0 || hour > 23)) {
+      throw new IllegalArgumentException(
+          "reCreateBerlinHitRadioPlaylistTasks.hours must be between 0 and 23: " + hours);
+    }
+    hours = List.copyOf(hours);
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+public record SpotifyRequestConfiguration(
+    Double requestsPerSecond, Integer burst, Integer maxRetries) {
+
+  public SpotifyRequestConfiguration {
+    if (requestsPerSecond == null) {
+      requestsPerSecond = 5.0;
+    }
+    if (burst == null) {
+      burst = 10;
+    }
+    if (maxRetries == null) {
+      maxRetries = 3;
+    }
+    if (requestsPerSecond <= 0 || burst < 1 || maxRetries < 0) {
+      throw new IllegalArgumentException(
+          "spotifyRequests needs a positive rate and burst and no negative retries");
+    }
+  }
+
+  public static SpotifyRequestConfiguration defaults() {
+    return new SpotifyRequestConfiguration(null, null, null);
+  }
+}
@@ -0,0 +1,21 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+public record TaskExecutionConfiguration(
+    Integer maxConcurrentTasks, Integer maxConcurrentTasksPerGroup) {
+
+  public TaskExecutionConfiguration {
+    if (maxConcurrentTasks == null) {
+      maxConcurrentTasks = 4;
+    }
+    if (maxConcurrentTasksPerGroup == null) {
+      maxConcurrentTasksPerGroup = 2;
+    }
+    if (maxConcurrentTasks < 1 || maxConcurrentTasksPerGroup < 1) {
+      throw new IllegalArgumentException("taskExecution limits must be at least 1");
+    }
+  }
+
+  public static TaskExecutionConfiguration defaults() {
+    return new TaskExecutionConfiguration(null, null);
+  }
+}
@@ -0,0 +1,30 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum TrackCacheBackend {
+  SQLITE("sqlite"),
+  APPEND_LOG("append-log");
+
+  private final String value;
+
+  TrackCacheBackend(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+  @JsonCreator
+  public static TrackCacheBackend fromString(String value) {
+    for (TrackCacheBackend backend : TrackCacheBackend.values()) {
+      if (backend.value.equalsIgnoreCase(value)) {
+        return backend;
+      }
+    }
+    throw new IllegalArgumentException("Invalid track cache backend: " + value);
+  }
+}
@@ -0,0 +1,48 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+public record TrackCacheConfiguration(
+    Integer memoryCacheSize,
+    Boolean preloadMemoryCache,
+    Integer negativeCacheTtlDays,
+    Double minMatchConfidence,
+    Integer revalidateAfterDays,
+    Integer maxRevalidationsPerRun,
+    Integer maxSize,
+    Integer preloadHotSetSize,
+    TrackCacheBackend backend) {
+
+  public TrackCacheConfiguration {
+    if (memoryCacheSize == null) {
+      memoryCacheSize = 5000;
+    }
+    if (preloadMemoryCache == null) {
+      preloadMemoryCache = false;
+    }
+    if (negativeCacheTtlDays == null) {
+      negativeCacheTtlDays = 7;
+    }
+    if (minMatchConfidence == null) {
+      // only exact matches, as before fuzzy matches were cached
+      minMatchConfidence = 1.0;
+    }
+    if (revalidateAfterDays == null) {
+      revalidateAfterDays = 30;
+    }
+    if (maxRevalidationsPerRun == null) {
+      maxRevalidationsPerRun = 1000;
+    }
+    if (maxSize == null) {
+      maxSize = 100_000;
+    }
+    if (preloadHotSetSize == null) {
+      preloadHotSetSize = 500;
+    }
+    if (backend == null) {
+      backend = TrackCacheBackend.SQLITE;
+    }
+  }
+
+  public static TrackCacheConfiguration defaults() {
+    return new TrackCacheConfiguration(null, null, null, null, null, null, null, null, null);
+  }
+}
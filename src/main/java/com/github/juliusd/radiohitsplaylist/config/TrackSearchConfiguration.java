@@ -0,0 +1,33 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+public record TrackSearchConfiguration(
+    Integer concurrency,
+    TrackSearchMode mode,
+    Integer broadSearchLimit,
+    Double minBroadMatchScore) {
+
+  public TrackSearchConfiguration {
+    if (concurrency == null) {
+      concurrency = 4;
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("trackSearch.concurrency must be at least 1");
+    }
+    if (mode == null) {
+      mode = TrackSearchMode.SEQUENTIAL;
+    }
+    if (broadSearchLimit == null) {
+      broadSearchLimit = 20;
+    }
+    if (broadSearchLimit < 1 || broadSearchLimit > 50) {
+      throw new IllegalArgumentException("trackSearch.broadSearchLimit must be between 1 and 50");
+    }
+    if (minBroadMatchScore == null) {
+      minBroadMatchScore = 0.9;
+    }
+  }
+
+  public static TrackSearchConfiguration defaults() {
+    return new TrackSearchConfiguration(null, null, null, null);
+  }
+}
@@ -0,0 +1,31 @@
+package com.github.juliusd.radiohitsplaylist.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum TrackSearchMode {
+  SEQUENTIAL("sequential"),
+  BROAD("broad"),
+  PARALLEL("parallel");
+
+  private final String value;
+
+  TrackSearchMode(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+  @JsonCreator
+  public static TrackSearchMode fromString(String value) {
+    for (TrackSearchMode mode : TrackSearchMode.values()) {
+      if (mode.value.equalsIgnoreCase(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Invalid track search mode: " + value);
+  }
+}
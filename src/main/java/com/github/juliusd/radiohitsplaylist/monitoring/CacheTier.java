@@ -0,0 +1,7 @@
+package com.github.juliusd.radiohitsplaylist.monitoring;
+
+/** The tiers of the track cache, from the fastest to the slowest. */
+public enum CacheTier {
+  MEMORY,
+  DATABASE
+}
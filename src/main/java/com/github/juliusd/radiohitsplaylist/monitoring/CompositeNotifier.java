@@ -1,5 +1,6 @@
 package com.github.juliusd.radiohitsplaylist.monitoring;
 
+import java.time.Duration;
 import java.util.List;
 
 public class CompositeNotifier implements Notifier {
@@ -40,13 +41,18 @@ public class CompositeNotifier implements Notifier {
   }
 
   @Override
-  public void recordCacheHit() {
-    notifiers.forEach(Notifier::recordCacheHit);
+  public void recordCacheHit(CacheTier tier) {
+    notifiers.forEach(notifier -> notifier.recordCacheHit(tier));
   }
 
   @Override
-  public void recordCacheMiss() {
-    notifiers.forEach(Notifier::recordCacheMiss);
+  public void recordCacheMiss(CacheTier tier) {
+    notifiers.forEach(notifier -> notifier.recordCacheMiss(tier));
+  }
+
+  @Override
+  public void recordTaskDuration(String taskName, Duration duration) {
+    notifiers.forEach(notifier -> notifier.recordTaskDuration(taskName, duration));
   }
 
   @Override
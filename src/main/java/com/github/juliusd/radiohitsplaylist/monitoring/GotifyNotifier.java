@@ -1,6 +1,7 @@
 package com.github.juliusd.radiohitsplaylist.monitoring;
 
 import com.github.juliusd.radiohitsplaylist.config.NotifierConfiguration;
+import java.time.Duration;
 
 class GotifyNotifier implements Notifier {
 
@@ -44,13 +45,18 @@ class GotifyNotifier implements Notifier {
   }
 
   @Override
-  public void recordCacheHit() {
-    statistic.recordCacheHit();
+  public void recordCacheHit(CacheTier tier) {
+    statistic.recordCacheHit(tier);
   }
 
   @Override
-  public void recordCacheMiss() {
-    statistic.recordCacheMiss();
+  public void recordCacheMiss(CacheTier tier) {
+    statistic.recordCacheMiss(tier);
+  }
+
+  @Override
+  public void recordTaskDuration(String taskName, Duration duration) {
+    statistic.recordTaskDuration(taskName, duration);
   }
 
   @Override
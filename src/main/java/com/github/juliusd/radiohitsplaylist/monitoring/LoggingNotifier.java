@@ -54,6 +54,10 @@ public class LoggingNotifier implements Notifier {
     cacheMessage.append(" (+").append(newTracksAdded).append(" new)");
     if (cacheHits > 0) {
       cacheMessage.append(", ").append(cacheHits).append(" cache hits");
+      long memoryCacheHits = statistic.getCacheHits(CacheTier.MEMORY);
+      if (memoryCacheHits > 0) {
+        cacheMessage.append(" (").append(memoryCacheHits).append(" from memory)");
+      }
     }
     if (cacheMisses > 0) {
       cacheMessage.append(", ").append(cacheMisses).append(" cache misses");
@@ -63,13 +67,19 @@ public class LoggingNotifier implements Notifier {
   }
 
   @Override
-  public void recordCacheHit() {
-    statistic.recordCacheHit();
+  public void recordCacheHit(CacheTier tier) {
+    statistic.recordCacheHit(tier);
   }
 
   @Override
-  public void recordCacheMiss() {
-    statistic.recordCacheMiss();
+  public void recordCacheMiss(CacheTier tier) {
+    statistic.recordCacheMiss(tier);
+  }
+
+  @Override
+  public void recordTaskDuration(String taskName, Duration duration) {
+    statistic.recordTaskDuration(taskName, duration);
+    log("Task " + taskName + " took " + duration.toMillis() + " ms");
   }
 
   @Override
@@ -1,5 +1,7 @@
 package com.github.juliusd.radiohitsplaylist.monitoring;
 
+import java.time.Duration;
+
 public class NoOpNotifier implements Notifier {
   @Override
   public void runStarted() {}
@@ -20,10 +22,13 @@ public class NoOpNotifier implements Notifier {
   public void recordFinalCacheSize(long cacheSize) {}
 
   @Override
-  public void recordCacheHit() {}
+  public void recordCacheHit(CacheTier tier) {}
+
+  @Override
+  public void recordCacheMiss(CacheTier tier) {}
 
   @Override
-  public void recordCacheMiss() {}
+  public void recordTaskDuration(String taskName, Duration duration) {}
 
   @Override
   public void runFinished() {}
@@ -2,6 +2,7 @@ package com.github.juliusd.radiohitsplaylist.monitoring;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 
 class NotificationTextBuilder {
@@ -78,6 +79,10 @@ class NotificationTextBuilder {
       messageText.append(" (+").append(newTracksAdded).append(" new)");
       if (cacheHits > 0) {
         messageText.append(", ").append(cacheHits).append(" cache hits");
+        long memoryCacheHits = statistic.getCacheHits(CacheTier.MEMORY);
+        if (memoryCacheHits > 0) {
+          messageText.append(" (").append(memoryCacheHits).append(" from memory)");
+        }
       }
       if (cacheMisses > 0) {
         messageText.append(", ").append(cacheMisses).append(" cache misses");
@@ -85,6 +90,17 @@ class NotificationTextBuilder {
       messageText.append("\n");
     }
 
+    statistic.getTaskDurations().stream()
+        .max(Comparator.comparing(Statistic.TaskDuration::duration))
+        .ifPresent(
+            slowestTask ->
+                messageText
+                    .append("Slowest task: ")
+                    .append(slowestTask.taskName())
+                    .append(" (")
+                    .append(formatDuration(slowestTask.duration()))
+                    .append(")\n"));
+
     return messageText.toString();
   }
 
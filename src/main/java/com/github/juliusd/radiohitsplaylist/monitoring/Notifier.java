@@ -1,5 +1,7 @@
 package com.github.juliusd.radiohitsplaylist.monitoring;
 
+import java.time.Duration;
+
 public interface Notifier {
   void runStarted();
 
@@ -13,9 +15,11 @@ public interface Notifier {
 
   void recordFinalCacheSize(long cacheSize);
 
-  void recordCacheHit();
+  void recordCacheHit(CacheTier tier);
+
+  void recordCacheMiss(CacheTier tier);
 
-  void recordCacheMiss();
+  void recordTaskDuration(String taskName, Duration duration);
 
   void runFinished();
 
@@ -1,99 +1,121 @@
 package com.github.juliusd.radiohitsplaylist.monitoring;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
+/** Collects the results of a run. Tasks run concurrently, so all access is synchronized. */
 class Statistic {
 
   private final List<String> shuffledPlaylists = new ArrayList<>();
   private final List<PlaylistRefreshResult> refreshedPlaylists = new ArrayList<>();
   private final List<SoundgraphResult> soundgraphResults = new ArrayList<>();
   private final List<TaskGroupFailure> failedTaskGroups = new ArrayList<>();
+  private final List<TaskDuration> taskDurations = new ArrayList<>();
   private LocalDateTime startTime;
   private long initialCacheSize = 0;
   private long finalCacheSize = 0;
-  private long cacheHits = 0;
-  private long cacheMisses = 0;
+  private final Map<CacheTier, Long> cacheHits = new EnumMap<>(CacheTier.class);
+  private final Map<CacheTier, Long> cacheMisses = new EnumMap<>(CacheTier.class);
 
-  public void recordPlaylistShuffled(String playlistName) {
+  public synchronized void recordPlaylistShuffled(String playlistName) {
     shuffledPlaylists.add(playlistName);
   }
 
-  public void recordPlaylistRefresh(String streamName, int amountOfTracks) {
+  public synchronized void recordPlaylistRefresh(String streamName, int amountOfTracks) {
     refreshedPlaylists.add(new PlaylistRefreshResult(streamName, amountOfTracks));
   }
 
-  public void recordSoundgraphExecuted(String name, int amountOfTracks) {
+  public synchronized void recordSoundgraphExecuted(String name, int amountOfTracks) {
     soundgraphResults.add(new SoundgraphResult(name, amountOfTracks));
   }
 
-  public void recordTaskGroupFailure(String taskGroupName, Throwable throwable) {
+  public synchronized void recordTaskGroupFailure(String taskGroupName, Throwable throwable) {
     failedTaskGroups.add(new TaskGroupFailure(taskGroupName, throwable));
   }
 
-  public void recordInitialCacheSize(long cacheSize) {
+  public synchronized void recordTaskDuration(String taskName, Duration duration) {
+    taskDurations.add(new TaskDuration(taskName, duration));
+  }
+
+  public synchronized void recordInitialCacheSize(long cacheSize) {
     this.initialCacheSize = cacheSize;
   }
 
-  public void recordFinalCacheSize(long cacheSize) {
+  public synchronized void recordFinalCacheSize(long cacheSize) {
     this.finalCacheSize = cacheSize;
   }
 
-  public void recordCacheHit() {
-    this.cacheHits++;
+  public synchronized void recordCacheHit(CacheTier tier) {
+    cacheHits.merge(tier, 1L, Long::sum);
   }
 
-  public void recordCacheMiss() {
-    this.cacheMisses++;
+  public synchronized void recordCacheMiss(CacheTier tier) {
+    cacheMisses.merge(tier, 1L, Long::sum);
   }
 
-  public List<String> getShuffledPlaylists() {
-    return Collections.unmodifiableList(shuffledPlaylists);
+  public synchronized List<String> getShuffledPlaylists() {
+    return List.copyOf(shuffledPlaylists);
   }
 
-  public List<PlaylistRefreshResult> getRefreshedPlaylists() {
-    return Collections.unmodifiableList(refreshedPlaylists);
+  public synchronized List<PlaylistRefreshResult> getRefreshedPlaylists() {
+    return List.copyOf(refreshedPlaylists);
   }
 
-  public List<SoundgraphResult> getSoundgraphResults() {
-    return Collections.unmodifiableList(soundgraphResults);
+  public synchronized List<SoundgraphResult> getSoundgraphResults() {
+    return List.copyOf(soundgraphResults);
   }
 
-  public List<TaskGroupFailure> getFailedTaskGroups() {
-    return Collections.unmodifiableList(failedTaskGroups);
+  public synchronized List<TaskGroupFailure> getFailedTaskGroups() {
+    return List.copyOf(failedTaskGroups);
   }
 
-  public boolean hasFailures() {
+  public synchronized List<TaskDuration> getTaskDurations() {
+    return List.copyOf(taskDurations);
+  }
+
+  public synchronized boolean hasFailures() {
     return !failedTaskGroups.isEmpty();
   }
 
-  public long getInitialCacheSize() {
+  public synchronized long getInitialCacheSize() {
     return initialCacheSize;
   }
 
-  public long getFinalCacheSize() {
+  public synchronized long getFinalCacheSize() {
     return finalCacheSize;
   }
 
-  public long getNewTracksAdded() {
+  public synchronized long getNewTracksAdded() {
     return finalCacheSize - initialCacheSize;
   }
 
-  public long getCacheHits() {
-    return cacheHits;
+  /** Lookups answered by any tier of the track cache. */
+  public synchronized long getCacheHits() {
+    return cacheHits.values().stream().mapToLong(Long::longValue).sum();
   }
 
-  public long getCacheMisses() {
-    return cacheMisses;
+  public synchronized long getCacheHits(CacheTier tier) {
+    return cacheHits.getOrDefault(tier, 0L);
   }
 
-  public void runStarted() {
+  /** Lookups that missed every tier of the track cache and had to be searched on Spotify. */
+  public synchronized long getCacheMisses() {
+    return getCacheMisses(CacheTier.DATABASE);
+  }
+
+  public synchronized long getCacheMisses(CacheTier tier) {
+    return cacheMisses.getOrDefault(tier, 0L);
+  }
+
+  public synchronized void runStarted() {
     startTime = LocalDateTime.now();
   }
 
-  public LocalDateTime getStartTime() {
+  public synchronized LocalDateTime getStartTime() {
     return startTime;
   }
 
@@ -102,4 +124,6 @@ class Statistic {
   public record SoundgraphResult(String name, int amountOfTracks) {}
 
   public record TaskGroupFailure(String taskGroupName, Throwable throwable) {}
+
+  public record TaskDuration(String taskName, Duration duration) {}
 }
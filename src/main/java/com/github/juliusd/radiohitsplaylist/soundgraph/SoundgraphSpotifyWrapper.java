@@ -2,22 +2,17 @@ package com.github.juliusd.radiohitsplaylist.soundgraph;
 
 import static com.github.juliusd.radiohitsplaylist.Logger.log;
 
+import com.github.juliusd.radiohitsplaylist.spotify.PlaylistWriter;
 import com.github.juliusd.radiohitsplaylist.spotify.SpotifyException;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.reflect.TypeToken;
+import com.github.juliusd.radiohitsplaylist.spotify.SpotifyRequestExecutor;
 import com.neovisionaries.i18n.CountryCode;
-import java.io.IOException;
 import java.net.URI;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.enums.AlbumGroup;
-import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
 import se.michaelthelin.spotify.model_objects.specification.AlbumSimplified;
 import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
 import se.michaelthelin.spotify.model_objects.specification.Episode;
@@ -27,9 +22,16 @@ import se.michaelthelin.spotify.model_objects.specification.TrackSimplified;
 
 public class SoundgraphSpotifyWrapper {
   private final SpotifyApi spotifyApi;
+  private final SpotifyRequestExecutor requestExecutor;
+  private final PlaylistWriter playlistWriter;
 
-  public SoundgraphSpotifyWrapper(SpotifyApi spotifyApi) {
+  public SoundgraphSpotifyWrapper(
+      SpotifyApi spotifyApi,
+      SpotifyRequestExecutor requestExecutor,
+      PlaylistWriter playlistWriter) {
     this.spotifyApi = spotifyApi;
+    this.requestExecutor = requestExecutor;
+    this.playlistWriter = playlistWriter;
   }
 
   public List<SoundgraphSong> getPlaylistTracks(String playlistId) throws SpotifyException {
@@ -37,11 +39,15 @@ public class SoundgraphSpotifyWrapper {
       List<SoundgraphSong> tracks = new ArrayList<>();
 
       PlaylistTrack[] playlistTracks =
-          spotifyApi
-              .getPlaylistsItems(playlistId)
-              .market(CountryCode.DE)
-              .build()
-              .execute()
+          requestExecutor
+              .execute(
+                  "load tracks of playlist " + playlistId,
+                  () ->
+                      spotifyApi
+                          .getPlaylistsItems(playlistId)
+                          .market(CountryCode.DE)
+                          .build()
+                          .execute())
               .getItems();
 
       for (PlaylistTrack playlistTrack : playlistTracks) {
@@ -74,7 +80,12 @@ public class SoundgraphSpotifyWrapper {
       List<SoundgraphSong> tracks = new ArrayList<>();
 
       TrackSimplified[] albumTracks =
-          spotifyApi.getAlbumsTracks(albumId).market(CountryCode.DE).build().execute().getItems();
+          requestExecutor
+              .execute(
+                  "load tracks of album " + albumId,
+                  () ->
+                      spotifyApi.getAlbumsTracks(albumId).market(CountryCode.DE).build().execute())
+              .getItems();
 
       for (TrackSimplified track : albumTracks) {
         List<String> artistNames =
@@ -98,7 +109,9 @@ public class SoundgraphSpotifyWrapper {
       List<SoundgraphSong> tracks = new ArrayList<>();
 
       Track[] topTracks =
-          spotifyApi.getArtistsTopTracks(artistId, CountryCode.DE).build().execute();
+          requestExecutor.execute(
+              "load top tracks of artist " + artistId,
+              () -> spotifyApi.getArtistsTopTracks(artistId, CountryCode.DE).build().execute());
 
       for (Track track : topTracks) {
         List<String> artistNames =
@@ -130,26 +143,33 @@ public class SoundgraphSpotifyWrapper {
 
       // Get all albums using pagination
       var response =
-          spotifyApi
-              .getArtistsAlbums(artistId)
-              .market(CountryCode.DE)
-              .limit(50)
-              .offset(0)
-              .build()
-              .execute();
+          requestExecutor.execute(
+              "load albums of artist " + artistId,
+              () ->
+                  spotifyApi
+                      .getArtistsAlbums(artistId)
+                      .market(CountryCode.DE)
+                      .limit(50)
+                      .offset(0)
+                      .build()
+                      .execute());
 
       var allAlbums = new ArrayList<AlbumSimplified>();
       allAlbums.addAll(Arrays.asList(response.getItems()));
 
       while (response.getNext() != null) {
+        int offset = allAlbums.size();
         response =
-            spotifyApi
-                .getArtistsAlbums(artistId)
-                .market(CountryCode.DE)
-                .limit(50)
-                .offset(allAlbums.size())
-                .build()
-                .execute();
+            requestExecutor.execute(
+                "load albums of artist " + artistId,
+                () ->
+                    spotifyApi
+                        .getArtistsAlbums(artistId)
+                        .market(CountryCode.DE)
+                        .limit(50)
+                        .offset(offset)
+                        .build()
+                        .execute());
 
         allAlbums.addAll(Arrays.asList(response.getItems()));
       }
@@ -224,52 +244,13 @@ public class SoundgraphSpotifyWrapper {
         return;
       }
 
-      // Convert SoundgraphSongs to URIs for the Spotify API
-      List<String> trackUris =
-          tracks.stream().map(song -> song.uri().toString()).collect(Collectors.toList());
-
-      // Handle first 100 tracks with replacePlaylistsItems
-      List<String> firstChunk = trackUris.subList(0, Math.min(100, trackUris.size()));
-      JsonArray uris =
-          new Gson()
-              .toJsonTree(firstChunk, new TypeToken<List<String>>() {}.getType())
-              .getAsJsonArray();
-
-      spotifyApi.replacePlaylistsItems(playlistId, uris).build().execute();
-
-      // Add remaining tracks in chunks of 100
-      if (trackUris.size() > 100) {
-        for (int i = 100; i < trackUris.size(); i += 100) {
-          List<String> chunk = trackUris.subList(i, Math.min(i + 100, trackUris.size()));
-          JsonArray chunkUris =
-              new Gson()
-                  .toJsonTree(chunk, new TypeToken<List<String>>() {}.getType())
-                  .getAsJsonArray();
-
-          spotifyApi.addItemsToPlaylist(playlistId, chunkUris).build().execute();
-        }
-      }
-
-      // Update description if prefix is provided
-      if (descriptionPrefix != null && !descriptionPrefix.trim().isEmpty()) {
-        updateDescription(playlistId, descriptionPrefix);
-      }
+      playlistWriter.replace(
+          playlistId,
+          tracks.stream().map(SoundgraphSong::uri).toList(),
+          PlaylistWriter.datedDescription(descriptionPrefix));
     } catch (Exception e) {
       log("Error updating playlist " + playlistId + ": " + e.getMessage());
       throw new SpotifyException("Error updating playlist " + playlistId, e);
     }
   }
-
-  private void updateDescription(String playlistId, String descriptionPrefix) {
-    try {
-      String today = LocalDate.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
-      spotifyApi
-          .changePlaylistsDetails(playlistId)
-          .description(descriptionPrefix.trim() + " " + today)
-          .build()
-          .execute();
-    } catch (IOException | SpotifyWebApiException | org.apache.hc.core5.http.ParseException e) {
-      throw new SpotifyException(e);
-    }
-  }
 }
@@ -0,0 +1,9 @@
+package com.github.juliusd.radiohitsplaylist.source;
+
+/** Exception thrown when the played tracks of a radio station cannot be loaded. */
+public class TrackSourceException extends RuntimeException {
+
+  public TrackSourceException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
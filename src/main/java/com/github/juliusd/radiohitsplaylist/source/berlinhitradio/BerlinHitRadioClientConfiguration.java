@@ -4,6 +4,7 @@ import feign.Feign;
 import feign.Logger;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
+import java.util.concurrent.ExecutorService;
 
 public class BerlinHitRadioClientConfiguration {
 
@@ -11,11 +12,14 @@ public class BerlinHitRadioClientConfiguration {
     return Feign.builder()
         .decoder(new JacksonDecoder())
         .encoder(new JacksonEncoder())
-        .logLevel(Logger.Level.FULL)
+        .logLevel(Logger.Level.NONE)
         .target(BerlinHitRadioClient.class, System.getProperty("berlinHitRadioUrl"));
   }
 
-  public BerlinHitRadioLoader berlinHitRadioLoader() {
-    return new BerlinHitRadioLoader(berlinHitRadioClient());
+  /**
+   * @param executor Loads the hours of a stream concurrently
+   */
+  public BerlinHitRadioLoader berlinHitRadioLoader(ExecutorService executor) {
+    return new BerlinHitRadioLoader(berlinHitRadioClient(), executor);
   }
 }
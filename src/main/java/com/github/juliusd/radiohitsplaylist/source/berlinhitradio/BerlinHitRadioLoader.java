@@ -1,23 +1,54 @@
 package com.github.juliusd.radiohitsplaylist.source.berlinhitradio;
 
+import com.github.juliusd.radiohitsplaylist.Futures;
 import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.source.TrackSourceException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class BerlinHitRadioLoader {
 
   private final BerlinHitRadioClient berlinHitRadioClient;
+  private final ExecutorService executor;
 
-  BerlinHitRadioLoader(BerlinHitRadioClient berlinHitRadioClient) {
+  /**
+   * @param executor Loads the hours of a stream concurrently; its number of threads limits the
+   *     requests in flight at once
+   */
+  BerlinHitRadioLoader(BerlinHitRadioClient berlinHitRadioClient, ExecutorService executor) {
     this.berlinHitRadioClient = berlinHitRadioClient;
+    this.executor = executor;
   }
 
-  public List<Track> load(String streamName) {
-    return Stream.of(6, 9, 12, 15)
-        .flatMap(hour -> berlinHitRadioClient.hitFinder(streamName, -1, hour, 48).stream())
-        .map(BerlinHitRadioTrackWrapper::track)
-        .map(it -> new Track(it.title(), it.artist()))
-        .distinct()
-        .toList();
+  /**
+   * @param hours Hours of the previous day to load, each one with a separate request
+   * @return The distinct tracks, ordered by the hour they were played in
+   */
+  public List<Track> load(String streamName, List<Integer> hours) {
+    List<Future<List<BerlinHitRadioTrackWrapper>>> requests = new ArrayList<>();
+    try {
+      for (int hour : hours.stream().sorted().distinct().toList()) {
+        requests.add(
+            executor.submit(() -> berlinHitRadioClient.hitFinder(streamName, -1, hour, 48)));
+      }
+      List<BerlinHitRadioTrackWrapper> tracks = new ArrayList<>();
+      for (Future<List<BerlinHitRadioTrackWrapper>> request : requests) {
+        tracks.addAll(
+            Futures.await(
+                request,
+                cause ->
+                    new TrackSourceException(
+                        "Failed to load Berlin Hit Radio stream " + streamName, cause)));
+      }
+      return tracks.stream()
+          .map(BerlinHitRadioTrackWrapper::track)
+          .map(it -> new Track(it.title(), it.artist()))
+          .distinct()
+          .toList();
+    } finally {
+      requests.forEach(request -> request.cancel(true));
+    }
   }
 }
@@ -3,6 +3,7 @@ package com.github.juliusd.radiohitsplaylist.source.bundesmux;
 import com.github.juliusd.radiohitsplaylist.config.Configuration;
 import feign.Feign;
 import feign.Logger;
+import java.util.concurrent.ExecutorService;
 
 public class BundesmuxClientConfiguration {
 
@@ -18,7 +19,10 @@ public class BundesmuxClientConfiguration {
         .target(BundesmuxClient.class, configuration.bundesmuxUrl());
   }
 
-  public BundesmuxLoader bundesmuxLoader() {
-    return new BundesmuxLoader(bundesmuxClient());
+  /**
+   * @param executor Loads the pages of a stream concurrently
+   */
+  public BundesmuxLoader bundesmuxLoader(ExecutorService executor) {
+    return new BundesmuxLoader(bundesmuxClient(), executor);
   }
 }
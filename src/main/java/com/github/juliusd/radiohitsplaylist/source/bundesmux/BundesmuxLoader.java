@@ -2,12 +2,16 @@ package com.github.juliusd.radiohitsplaylist.source.bundesmux;
 
 import static java.util.stream.Collectors.toList;
 
+import com.github.juliusd.radiohitsplaylist.Futures;
 import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.source.TrackSourceException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -15,38 +19,65 @@ import org.jsoup.select.Elements;
 
 public class BundesmuxLoader {
 
+  private static final int FIRST_PAGE = 5;
+  private static final int LAST_PAGE = 17;
+
   private final BundesmuxClient bundesmuxClient;
+  private final ExecutorService executor;
 
-  BundesmuxLoader(BundesmuxClient bundesmuxClient) {
+  /**
+   * @param executor Loads and parses the pages of a stream concurrently; its number of threads
+   *     limits the requests in flight at once
+   */
+  BundesmuxLoader(BundesmuxClient bundesmuxClient, ExecutorService executor) {
     this.bundesmuxClient = bundesmuxClient;
+    this.executor = executor;
   }
 
   public List<Track> load(String streamName) {
     String yesterday = LocalDate.now().minusDays(1).format(DateTimeFormatter.ISO_DATE);
-    List<Track> tracks =
-        IntStream.rangeClosed(5, 17)
-            .boxed()
-            .flatMap(
-                page -> {
-                  var result = bundesmuxClient.load(streamName, yesterday, page);
-                  Document doc = Jsoup.parse(result);
-                  Elements playListEntry = doc.select("turbo-stream template > div > div");
-                  return playListEntry.stream()
-                      .map(
-                          (Element entry) -> {
-                            Elements divs = entry.select("div > div");
-                            //        String date = divs.get(0).text().trim();
-                            String artist = divs.get(1).text().trim();
-                            String title = divs.get(2).text().trim();
-                            //        System.out.println(date+") "+ artist+": "+title);
-                            return new Track(title, artist);
-                          });
-                })
-            .filter(track -> !track.title().equalsIgnoreCase("Coming Up"))
-            .filter(track -> !track.artist().equalsIgnoreCase("Coming Up"))
-            .distinct()
-            .collect(toList());
-    Collections.reverse(tracks);
-    return Collections.unmodifiableList(tracks);
+    List<Future<List<Track>>> pages = new ArrayList<>();
+    try {
+      for (int page = FIRST_PAGE; page <= LAST_PAGE; page++) {
+        int pageNumber = page;
+        pages.add(executor.submit(() -> loadPage(streamName, yesterday, pageNumber)));
+      }
+      List<Track> tracks = new ArrayList<>();
+      for (Future<List<Track>> page : pages) {
+        tracks.addAll(
+            Futures.await(
+                page,
+                cause ->
+                    new TrackSourceException(
+                        "Failed to load Bundesmux stream " + streamName, cause)));
+      }
+      tracks =
+          tracks.stream()
+              .filter(track -> !track.title().equalsIgnoreCase("Coming Up"))
+              .filter(track -> !track.artist().equalsIgnoreCase("Coming Up"))
+              .distinct()
+              .collect(toList());
+      Collections.reverse(tracks);
+      return Collections.unmodifiableList(tracks);
+    } finally {
+      pages.forEach(page -> page.cancel(true));
+    }
+  }
+
+  private List<Track> loadPage(String streamName, String date, int page) {
+    var result = bundesmuxClient.load(streamName, date, page);
+    Document doc = Jsoup.parse(result);
+    Elements playListEntry = doc.select("turbo-stream template > div > div");
+    return playListEntry.stream()
+        .map(
+            (Element entry) -> {
+              Elements divs = entry.select("div > div");
+              //        String date = divs.get(0).text().trim();
+              String artist = divs.get(1).text().trim();
+              String title = divs.get(2).text().trim();
+              //        System.out.println(date+") "+ artist+": "+title);
+              return new Track(title, artist);
+            })
+        .toList();
   }
 }
@@ -0,0 +1,628 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * {@link TrackCache} held in hash maps and persisted as an append-only log file. It needs neither a
+ * JDBC driver nor a native library.
+ *
+ * <p>Every change is appended as a record holding the complete new state of an entry, so opening
+ * the cache replays the memory-mapped file from start to end and the last record of an entry wins.
+ * Each record carries its length and a CRC32 checksum; a record cut off by a crash at the end of
+ * the log is truncated, a corrupt record within the log is skipped. When the log holds more than
+ * twice as many records as live entries on opening, it is rewritten with the live entries only.
+ *
+ * <p>Changes are buffered and appended by {@link #flush()}, either explicitly, once the buffer is
+ * full or when the cache is closed. Lookups are answered from memory only. All access is
+ * synchronized on the cache instance, and the log file is locked while the cache is open. The log
+ * is written through a {@link FileChannel}, which is closed for good if a writing thread gets
+ * interrupted, so threads using the cache must not be interrupted.
+ */
+public class AppendLogTrackCache implements TrackCache {
+
+  static final int DEFAULT_WRITE_BUFFER_SIZE = 500;
+
+  /** Logs with fewer records are never compacted. */
+  private static final int MIN_RECORDS_TO_COMPACT = 1000;
+
+  /** Length and checksum in front of each record. */
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  private static final byte MAPPING = 1;
+  private static final byte MAPPING_REMOVED = 2;
+  private static final byte UNRESOLVABLE_TRACK = 3;
+
+  private final Path logPath;
+  private final int writeBufferSize;
+  private final Clock clock;
+  private final Map<Track, Mapping> mappings = new HashMap<>();
+  private final Map<String, Set<Track>> tracksByLookupKey = new HashMap<>();
+  private final Map<Track, Instant> unresolvableTracks = new HashMap<>();
+  private final Set<Track> changedMappings = new LinkedHashSet<>();
+  private final Set<Track> changedUnresolvableTracks = new LinkedHashSet<>();
+  private FileChannel channel;
+  private long recordCount;
+  private long nextId = 1;
+
+  public AppendLogTrackCache(String logPath) {
+    this(logPath, DEFAULT_WRITE_BUFFER_SIZE);
+  }
+
+  /**
+   * @param logPath Path of the log file
+   * @param writeBufferSize Number of changed entries that triggers a flush
+   */
+  public AppendLogTrackCache(String logPath, int writeBufferSize) {
+    this(logPath, writeBufferSize, Clock.systemUTC());
+  }
+
+  /**
+   * @param logPath Path of the log file
+   * @param writeBufferSize Number of changed entries that triggers a flush
+   * @param clock Clock used to timestamp and expire entries
+   */
+  public AppendLogTrackCache(String logPath, int writeBufferSize, Clock clock) {
+    if (writeBufferSize < 1) {
+      throw new IllegalArgumentException("writeBufferSize must be positive: " + writeBufferSize);
+    }
+    this.logPath = Path.of(logPath);
+    this.writeBufferSize = writeBufferSize;
+    this.clock = clock;
+    try {
+      channel = openChannel();
+      replay();
+      if (recordCount >= MIN_RECORDS_TO_COMPACT
+          && recordCount > 2L * (mappings.size() + unresolvableTracks.size())) {
+        compact();
+      }
+    } catch (IOException e) {
+      closeQuietly();
+      throw new TrackCacheException("Failed to open track cache log " + logPath, e);
+    }
+  }
+
+  /** Locks the log for as long as it is open, as concurrent appends would corrupt it. */
+  private FileChannel openChannel() throws IOException {
+    FileChannel logChannel =
+        FileChannel.open(
+            logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (logChannel.tryLock() == null) {
+        throw new IOException("Track cache log " + logPath + " is locked by another process");
+      }
+    } catch (IOException | OverlappingFileLockException e) {
+      logChannel.close();
+      throw e instanceof IOException ioException
+          ? ioException
+          : new IOException("Track cache log " + logPath + " is already opened by this process", e);
+    }
+    return logChannel;
+  }
+
+  /**
+   * A record with a wrong checksum is only truncated if it ends the log, which is how a record cut
+   * off by a crash looks like. A corrupt record within the log is skipped by its length and kept in
+   * the file, a record header within the log which cannot be read fails the replay.
+   */
+  private void replay() throws IOException {
+    long size = channel.size();
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    int validEnd = 0;
+    while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+      int recordStart = buffer.position();
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length > buffer.remaining() || (length <= 0 && isZeroFilled(buffer, recordStart))) {
+        break;
+      }
+      if (length <= 0) {
+        throw new IOException(
+            "Corrupt record header at offset " + recordStart + " of track cache log " + logPath);
+      }
+      ByteBuffer record = buffer.slice(buffer.position(), length);
+      buffer.position(buffer.position() + length);
+      if (checksum(record.duplicate()) != checksum) {
+        if (!buffer.hasRemaining()) {
+          break;
+        }
+        log(
+            "Skipping corrupt record of "
+                + length
+                + " bytes at offset "
+                + recordStart
+                + " of track cache log "
+                + logPath);
+      } else {
+        applyRecord(record);
+      }
+      validEnd = buffer.position();
+      recordCount++;
+    }
+    if (validEnd < size) {
+      log(
+          "Truncating "
+              + (size - validEnd)
+              + " bytes of a record cut off at the end of track cache log "
+              + logPath);
+      channel.truncate(validEnd);
+    }
+  }
+
+  /** File systems may leave zeros at the end of a file which was extended during a crash. */
+  private static boolean isZeroFilled(ByteBuffer buffer, int from) {
+    for (int i = from; i < buffer.limit(); i++) {
+      if (buffer.get(i) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @throws IOException if the record has an unknown type, e.g. because a newer version wrote it
+   */
+  private void applyRecord(ByteBuffer record) throws IOException {
+    byte type = record.get();
+    String artist = readString(record);
+    Track track = new Track(readString(record), artist);
+    switch (type) {
+      case MAPPING -> {
+        URI spotifyUri = URI.create(readString(record));
+        String queryVariant = readString(record);
+        Mapping mapping =
+            new Mapping(
+                spotifyUri,
+                queryVariant.isEmpty() ? null : QueryVariant.valueOf(queryVariant),
+                record.getDouble(),
+                record.getLong(),
+                record.getLong(),
+                record.getLong(),
+                record.getInt());
+        putMapping(track, mapping);
+        nextId = Math.max(nextId, mapping.id() + 1);
+      }
+      case MAPPING_REMOVED -> removeMapping(track);
+      case UNRESOLVABLE_TRACK ->
+          unresolvableTracks.put(track, Instant.ofEpochMilli(record.getLong()));
+      default ->
+          throw new IOException("Unknown record type " + type + " in track cache log " + logPath);
+    }
+  }
+
+  /** Rewrites the log with one record per live entry and replaces the old log atomically. */
+  private void compact() throws IOException {
+    long oldRecordCount = recordCount;
+    Path compactedPath = logPath.resolveSibling(logPath.getFileName() + ".compact");
+    try (FileChannel compacted =
+        FileChannel.open(
+            compactedPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      writeFully(compacted, encodeRecords(mappings.keySet(), unresolvableTracks.keySet()));
+      compacted.force(true);
+    }
+    channel.close();
+    Files.move(
+        compactedPath,
+        logPath,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    channel = openChannel();
+    recordCount = mappings.size() + unresolvableTracks.size();
+    log("Compacted track cache log from " + oldRecordCount + " to " + recordCount + " records");
+  }
+
+  @Override
+  public synchronized Optional<URI> findTrack(Track track) {
+    Mapping mapping = mappings.get(track);
+    if (mapping == null) {
+      mapping = bestMapping(TrackNormalizer.lookupKey(track), Double.NEGATIVE_INFINITY);
+    }
+    return Optional.ofNullable(mapping).map(Mapping::spotifyUri);
+  }
+
+  @Override
+  public synchronized Map<Track, URI> findTracks(Collection<Track> tracks, double minConfidence) {
+    Map<Track, URI> result = new HashMap<>();
+    for (Track track : new LinkedHashSet<>(tracks)) {
+      String lookupKey = TrackNormalizer.lookupKey(track);
+      Mapping mapping = mappings.get(track);
+      if (mapping == null || mapping.confidence() < minConfidence) {
+        mapping = bestMapping(lookupKey, minConfidence);
+      }
+      if (mapping != null) {
+        result.put(track, mapping.spotifyUri());
+        recordHits(lookupKey, 1);
+      }
+    }
+    flushIfBufferIsFull();
+    return result;
+  }
+
+  /** The mapping of any spelling with the highest confidence, the most recent one on a tie. */
+  private Mapping bestMapping(String lookupKey, double minConfidence) {
+    return tracksByLookupKey.getOrDefault(lookupKey, Set.of()).stream()
+        .map(mappings::get)
+        .filter(mapping -> mapping.confidence() >= minConfidence)
+        .max(Comparator.comparingDouble(Mapping::confidence).thenComparingLong(Mapping::id))
+        .orElse(null);
+  }
+
+  @Override
+  public synchronized void recordHits(Collection<Track> tracks) {
+    tracks.forEach(track -> recordHits(TrackNormalizer.lookupKey(track), 1));
+    flushIfBufferIsFull();
+  }
+
+  private void recordHits(String lookupKey, int hits) {
+    long now = clock.instant().toEpochMilli();
+    for (Track track : tracksByLookupKey.getOrDefault(lookupKey, Set.of())) {
+      Mapping mapping = mappings.get(track);
+      mappings.put(track, mapping.withHits(now, hits));
+      changedMappings.add(track);
+    }
+  }
+
+  @Override
+  public synchronized Set<Track> findUnresolvableTracks(Collection<Track> tracks, Duration maxAge) {
+    Instant checkedAfter = clock.instant().minus(maxAge);
+    Set<Track> result = new HashSet<>();
+    for (Track track : tracks) {
+      Instant checkedAt = unresolvableTracks.get(track);
+      if (checkedAt != null && !checkedAt.isBefore(checkedAfter)) {
+        result.add(track);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized Map<Track, URI> loadTracks(int limit, double minConfidence) {
+    return loadMappings(
+        limit, minConfidence, Comparator.comparingLong(Mapping::id).reversed(), false);
+  }
+
+  @Override
+  public synchronized Map<Track, URI> loadHotTracks(int limit, double minConfidence) {
+    return loadMappings(
+        limit,
+        minConfidence,
+        Comparator.comparingInt(Mapping::hitCount).thenComparingLong(Mapping::lastHitAt).reversed(),
+        true);
+  }
+
+  private Map<Track, URI> loadMappings(
+      int limit, double minConfidence, Comparator<Mapping> order, boolean onlyHits) {
+    Map<Track, URI> result = new LinkedHashMap<>();
+    mappings.entrySet().stream()
+        .filter(entry -> entry.getValue().confidence() >= minConfidence)
+        .filter(entry -> !onlyHits || entry.getValue().hitCount() > 0)
+        .sorted(Map.Entry.comparingByValue(order))
+        .limit(limit)
+        .forEach(entry -> result.put(entry.getKey(), entry.getValue().spotifyUri()));
+    return result;
+  }
+
+  @Override
+  public synchronized void storeTrack(
+      Track track, URI spotifyUri, QueryVariant queryVariant, double confidence) {
+    long now = clock.instant().toEpochMilli();
+    Mapping replaced = mappings.get(track);
+    putMapping(
+        track,
+        replaced != null
+            ? new Mapping(
+                spotifyUri, queryVariant, confidence, replaced.id(), now, now, replaced.hitCount())
+            : new Mapping(spotifyUri, queryVariant, confidence, nextId++, now, now, 0));
+    changedMappings.add(track);
+    flushIfBufferIsFull();
+  }
+
+  @Override
+  public synchronized void storeUnresolvableTrack(Track track) {
+    unresolvableTracks.put(track, clock.instant());
+    changedUnresolvableTracks.add(track);
+    flushIfBufferIsFull();
+  }
+
+  @Override
+  public synchronized List<URI> findStaleTracks(Duration maxAge, int limit) {
+    long validatedBefore = clock.instant().minus(maxAge).toEpochMilli();
+    Map<URI, Long> oldestValidation = new HashMap<>();
+    for (Mapping mapping : mappings.values()) {
+      if (mapping.validatedAt() < validatedBefore) {
+        oldestValidation.merge(mapping.spotifyUri(), mapping.validatedAt(), Math::min);
+      }
+    }
+    return oldestValidation.entrySet().stream()
+        .sorted(Map.Entry.comparingByValue())
+        .limit(limit)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  @Override
+  public synchronized void storeRevalidatedTracks(Map<URI, Optional<URI>> currentUris) {
+    long now = clock.instant().toEpochMilli();
+    for (Map.Entry<Track, Mapping> entry : List.copyOf(mappings.entrySet())) {
+      Optional<URI> currentUri = currentUris.get(entry.getValue().spotifyUri());
+      if (currentUri == null) {
+        continue;
+      }
+      if (currentUri.isPresent()) {
+        mappings.put(entry.getKey(), entry.getValue().withValidation(currentUri.get(), now));
+      } else {
+        removeMapping(entry.getKey());
+      }
+      changedMappings.add(entry.getKey());
+    }
+    flushIfBufferIsFull();
+  }
+
+  @Override
+  public synchronized int evictLeastRecentlyUsed(int maxSize) {
+    if (mappings.size() <= maxSize) {
+      return 0;
+    }
+    List<Track> evicted =
+        mappings.entrySet().stream()
+            .sorted(
+                Map.Entry.comparingByValue(
+                    Comparator.comparingLong(Mapping::lastHitAt)
+                        .thenComparingLong(Mapping::id)
+                        .reversed()))
+            .skip(maxSize)
+            .map(Map.Entry::getKey)
+            .toList();
+    evicted.forEach(this::removeMapping);
+    changedMappings.addAll(evicted);
+    flush();
+    return evicted.size();
+  }
+
+  @Override
+  public synchronized List<TrackCacheEntry> exportEntries() {
+    return mappings.entrySet().stream()
+        .map(
+            entry -> {
+              Mapping mapping = entry.getValue();
+              return new TrackCacheEntry(
+                  entry.getKey(),
+                  mapping.spotifyUri(),
+                  mapping.queryVariant(),
+                  mapping.confidence(),
+                  Instant.ofEpochMilli(mapping.validatedAt()),
+                  Instant.ofEpochMilli(mapping.lastHitAt()),
+                  mapping.hitCount());
+            })
+        .toList();
+  }
+
+  @Override
+  public synchronized void importEntries(Collection<TrackCacheEntry> entries) {
+    for (TrackCacheEntry entry : entries) {
+      Mapping replaced = mappings.get(entry.track());
+      putMapping(
+          entry.track(),
+          new Mapping(
+              entry.spotifyUri(),
+              entry.queryVariant(),
+              entry.confidence(),
+              replaced != null ? replaced.id() : nextId++,
+              entry.validatedAt().toEpochMilli(),
+              entry.lastHitAt().toEpochMilli(),
+              entry.hitCount()));
+      changedMappings.add(entry.track());
+    }
+    flush();
+  }
+
+  private void putMapping(Track track, Mapping mapping) {
+    mappings.put(track, mapping);
+    tracksByLookupKey
+        .computeIfAbsent(TrackNormalizer.lookupKey(track), key -> new HashSet<>())
+        .add(track);
+  }
+
+  private void removeMapping(Track track) {
+    if (mappings.remove(track) == null) {
+      return;
+    }
+    String lookupKey = TrackNormalizer.lookupKey(track);
+    Set<Track> spellings = tracksByLookupKey.get(lookupKey);
+    spellings.remove(track);
+    if (spellings.isEmpty()) {
+      tracksByLookupKey.remove(lookupKey);
+    }
+  }
+
+  private void flushIfBufferIsFull() {
+    if (changedMappings.size() + changedUnresolvableTracks.size() >= writeBufferSize) {
+      flush();
+    }
+  }
+
+  /** Appends the current state of all changed entries to the log. */
+  @Override
+  public synchronized void flush() {
+    if (changedMappings.isEmpty() && changedUnresolvableTracks.isEmpty()) {
+      return;
+    }
+    try {
+      writeFully(channel, encodeRecords(changedMappings, changedUnresolvableTracks));
+      recordCount += changedMappings.size() + changedUnresolvableTracks.size();
+      changedMappings.clear();
+      changedUnresolvableTracks.clear();
+    } catch (IOException e) {
+      throw new TrackCacheException(
+          "Failed to append "
+              + (changedMappings.size() + changedUnresolvableTracks.size())
+              + " entries to track cache log "
+              + logPath,
+          e);
+    }
+  }
+
+  private ByteBuffer encodeRecords(
+      Collection<Track> mappingTracks, Collection<Track> unresolvableTrackKeys) throws IOException {
+    var records = new ByteArrayOutputStream();
+    var recordOut = new DataOutputStream(records);
+    var payload = new ByteArrayOutputStream();
+    var out = new DataOutputStream(payload);
+    for (Track track : mappingTracks) {
+      payload.reset();
+      Mapping mapping = mappings.get(track);
+      out.writeByte(mapping != null ? MAPPING : MAPPING_REMOVED);
+      writeString(out, track.artist());
+      writeString(out, track.title());
+      if (mapping != null) {
+        writeString(out, mapping.spotifyUri().toString());
+        writeString(out, mapping.queryVariant() != null ? mapping.queryVariant().name() : "");
+        out.writeDouble(mapping.confidence());
+        out.writeLong(mapping.id());
+        out.writeLong(mapping.validatedAt());
+        out.writeLong(mapping.lastHitAt());
+        out.writeInt(mapping.hitCount());
+      }
+      writeRecord(recordOut, payload);
+    }
+    for (Track track : unresolvableTrackKeys) {
+      payload.reset();
+      out.writeByte(UNRESOLVABLE_TRACK);
+      writeString(out, track.artist());
+      writeString(out, track.title());
+      out.writeLong(unresolvableTracks.get(track).toEpochMilli());
+      writeRecord(recordOut, payload);
+    }
+    return ByteBuffer.wrap(records.toByteArray());
+  }
+
+  private static void writeRecord(DataOutputStream recordOut, ByteArrayOutputStream payload)
+      throws IOException {
+    byte[] bytes = payload.toByteArray();
+    recordOut.writeInt(bytes.length);
+    recordOut.writeInt(checksum(ByteBuffer.wrap(bytes)));
+    recordOut.write(bytes);
+  }
+
+  private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+    target.position(target.size());
+    while (buffer.hasRemaining()) {
+      target.write(buffer);
+    }
+  }
+
+  private static int checksum(ByteBuffer bytes) {
+    var crc = new CRC32();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer record) {
+    byte[] bytes = new byte[record.getInt()];
+    record.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public synchronized void clearCache() {
+    mappings.clear();
+    tracksByLookupKey.clear();
+    unresolvableTracks.clear();
+    changedMappings.clear();
+    changedUnresolvableTracks.clear();
+    try {
+      channel.truncate(0);
+      recordCount = 0;
+    } catch (IOException e) {
+      throw new TrackCacheException("Failed to clear track cache log " + logPath, e);
+    }
+  }
+
+  @Override
+  public synchronized long getCacheSize() {
+    return mappings.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      flush();
+    } finally {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new TrackCacheException("Failed to close track cache log " + logPath, e);
+      }
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException ignored) {
+    }
+  }
+
+  /**
+   * State of one mapping; {@code id} orders mappings by the time they were stored, the timestamps
+   * are epoch milliseconds.
+   */
+  private record Mapping(
+      URI spotifyUri,
+      QueryVariant queryVariant,
+      double confidence,
+      long id,
+      long validatedAt,
+      long lastHitAt,
+      int hitCount) {
+
+    Mapping withHits(long hitAt, int hits) {
+      return new Mapping(
+          spotifyUri, queryVariant, confidence, id, validatedAt, hitAt, hitCount + hits);
+    }
+
+    Mapping withValidation(URI currentUri, long validatedAt) {
+      return new Mapping(
+          currentUri, queryVariant, confidence, id, validatedAt, lastHitAt, hitCount);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of a track cache lookup.
+ *
+ * @param uris Spotify URIs of the tracks found in the cache
+ * @param unresolvableTracks Tracks recently found to be not available on Spotify
+ */
+public record CachedTracks(Map<Track, URI> uris, Set<Track> unresolvableTracks) {}
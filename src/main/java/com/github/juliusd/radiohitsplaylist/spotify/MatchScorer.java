@@ -0,0 +1,63 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+
+/** Rates how well a found Spotify track matches the wanted radio track. */
+final class MatchScorer {
+
+  static final double EXACT_MATCH = 1.0;
+
+  private MatchScorer() {}
+
+  /**
+   * @return 1 if title and artists are equal after normalization, otherwise the mean of the title
+   *     and artist similarity, which is always below 1
+   */
+  static double score(Track wantedTrack, SpotifyTrack foundTrack) {
+    String wantedTitle = TrackNormalizer.normalizeTitle(wantedTrack.title());
+    String foundTitle = TrackNormalizer.normalizeTitle(foundTrack.name());
+    String wantedArtists = TrackNormalizer.normalizeArtist(wantedTrack.artist());
+    String foundArtists = TrackNormalizer.normalizeArtist(String.join(" ", foundTrack.artists()));
+
+    if (wantedTitle.equals(foundTitle) && wantedArtists.equals(foundArtists)) {
+      return EXACT_MATCH;
+    }
+    double score =
+        (similarity(wantedTitle, foundTitle) + similarity(wantedArtists, foundArtists)) / 2;
+    return Math.min(score, Math.nextDown(EXACT_MATCH));
+  }
+
+  /**
+   * @return 1 minus the Levenshtein distance relative to the length of the longer string
+   */
+  static double similarity(String first, String second) {
+    int maxLength = Math.max(first.length(), second.length());
+    if (maxLength == 0) {
+      return 1.0;
+    }
+    return 1.0 - (double) levenshteinDistance(first, second) / maxLength;
+  }
+
+  static int levenshteinDistance(String first, String second) {
+    int[] previousRow = new int[second.length() + 1];
+    int[] currentRow = new int[second.length() + 1];
+    for (int j = 0; j <= second.length(); j++) {
+      previousRow[j] = j;
+    }
+
+    for (int i = 1; i <= first.length(); i++) {
+      currentRow[0] = i;
+      for (int j = 1; j <= second.length(); j++) {
+        int substitutionCost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+        currentRow[j] =
+            Math.min(
+                Math.min(currentRow[j - 1] + 1, previousRow[j] + 1),
+                previousRow[j - 1] + substitutionCost);
+      }
+      int[] swap = previousRow;
+      previousRow = currentRow;
+      currentRow = swap;
+    }
+    return previousRow[second.length()];
+  }
+}
@@ -0,0 +1,183 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Edit script which turns the current items of a playlist into the wanted ones with as few write
+ * requests as possible.
+ *
+ * <p>The longest run of current items which already appear in the wanted order is kept, which is
+ * the longest increasing subsequence of their wanted positions. All other current items are removed
+ * by URI, and the missing wanted items are inserted afterwards, in ascending order of their
+ * positions, so that every insert position counts only items which are already in place. Items in
+ * the wrong order are thus removed and inserted again instead of being moved one by one.
+ *
+ * <p>Spotify removes every occurrence of a URI, so playlists with duplicate items are always
+ * replaced as a whole.
+ */
+final class PlaylistDiff {
+
+  /** Maximum number of items Spotify accepts in one add, remove or replace request. */
+  static final int MAX_ITEMS_PER_REQUEST = 100;
+
+  /**
+   * Items inserted at one position with one request.
+   *
+   * @param position Position in the playlist at the time of the insert
+   * @param uris The consecutive items to insert
+   */
+  record Insertion(int position, List<String> uris) {}
+
+  private final List<String> removals;
+  private final List<Insertion> insertions;
+  private final boolean fullReplace;
+
+  private PlaylistDiff(List<String> removals, List<Insertion> insertions, boolean fullReplace) {
+    this.removals = removals;
+    this.insertions = insertions;
+    this.fullReplace = fullReplace;
+  }
+
+  /**
+   * @param currentUris The items currently in the playlist
+   * @param wantedUris The items the playlist should contain, in this order
+   * @return The edit script, or a full replace if that needs no more requests
+   */
+  static PlaylistDiff compute(List<String> currentUris, List<String> wantedUris) {
+    if (hasDuplicates(currentUris) || hasDuplicates(wantedUris)) {
+      return new PlaylistDiff(List.of(), List.of(), true);
+    }
+    Map<String, Integer> wantedPositions = new HashMap<>();
+    for (int i = 0; i < wantedUris.size(); i++) {
+      wantedPositions.put(wantedUris.get(i), i);
+    }
+    int[] positionsOfCurrentItems =
+        currentUris.stream()
+            .map(wantedPositions::get)
+            .filter(Objects::nonNull)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    Set<Integer> keptPositions = longestIncreasingSubsequence(positionsOfCurrentItems);
+
+    List<String> removals = new ArrayList<>();
+    for (String uri : currentUris) {
+      Integer position = wantedPositions.get(uri);
+      if (position == null || !keptPositions.contains(position)) {
+        removals.add(uri);
+      }
+    }
+    List<Insertion> insertions = new ArrayList<>();
+    int runStart = -1;
+    for (int i = 0; i <= wantedUris.size(); i++) {
+      boolean missing = i < wantedUris.size() && !keptPositions.contains(i);
+      if (missing && runStart < 0) {
+        runStart = i;
+      }
+      boolean runEnds = runStart >= 0 && (!missing || i - runStart == MAX_ITEMS_PER_REQUEST);
+      if (runEnds) {
+        insertions.add(new Insertion(runStart, List.copyOf(wantedUris.subList(runStart, i))));
+        runStart = missing ? i : -1;
+      }
+    }
+
+    var diff = new PlaylistDiff(removals, insertions, false);
+    if (diff.requestCount() >= replaceRequestCount(wantedUris.size())) {
+      return new PlaylistDiff(List.of(), List.of(), true);
+    }
+    return diff;
+  }
+
+  /** Number of requests needed to replace the whole playlist with the given number of items. */
+  static int replaceRequestCount(int itemCount) {
+    return Math.max(1, chunkCount(itemCount));
+  }
+
+  private static int chunkCount(int itemCount) {
+    return (itemCount + MAX_ITEMS_PER_REQUEST - 1) / MAX_ITEMS_PER_REQUEST;
+  }
+
+  private static boolean hasDuplicates(List<String> uris) {
+    return new HashSet<>(uris).size() != uris.size();
+  }
+
+  /**
+   * Patience sorting: {@code tails[k]} holds the index of the smallest value ending an increasing
+   * subsequence of length {@code k + 1}, and {@code predecessors} links each value to the one
+   * before it in its subsequence.
+   *
+   * @return The values of one longest strictly increasing subsequence
+   */
+  private static Set<Integer> longestIncreasingSubsequence(int[] values) {
+    int[] tails = new int[values.length];
+    int[] predecessors = new int[values.length];
+    int length = 0;
+    for (int i = 0; i < values.length; i++) {
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[tails[middle]] < values[i]) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      predecessors[i] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = i;
+      if (low == length) {
+        length++;
+      }
+    }
+    Set<Integer> result = new HashSet<>();
+    for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+      result.add(values[i]);
+    }
+    return result;
+  }
+
+  /** True if the playlist should be replaced as a whole instead of applying the edit script. */
+  boolean isFullReplace() {
+    return fullReplace;
+  }
+
+  boolean isEmpty() {
+    return !fullReplace && removals.isEmpty() && insertions.isEmpty();
+  }
+
+  /** Removals in chunks of at most {@link #MAX_ITEMS_PER_REQUEST} URIs. */
+  List<List<String>> removalChunks() {
+    List<List<String>> chunks = new ArrayList<>();
+    for (int i = 0; i < removals.size(); i += MAX_ITEMS_PER_REQUEST) {
+      chunks.add(removals.subList(i, Math.min(i + MAX_ITEMS_PER_REQUEST, removals.size())));
+    }
+    return chunks;
+  }
+
+  /** Insertions in the order they have to be applied, after all removals. */
+  List<Insertion> insertions() {
+    return insertions;
+  }
+
+  /** Number of write requests needed to apply the edit script. */
+  int requestCount() {
+    return chunkCount(removals.size()) + insertions.size();
+  }
+
+  @Override
+  public String toString() {
+    return fullReplace
+        ? "full replace"
+        : removals.size()
+            + " removals and "
+            + insertions.stream().mapToInt(insertion -> insertion.uris().size()).sum()
+            + " insertions in "
+            + requestCount()
+            + " requests";
+  }
+}
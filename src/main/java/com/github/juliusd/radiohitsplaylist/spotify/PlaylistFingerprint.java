@@ -0,0 +1,36 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * State of a playlist after it was last written by {@link PlaylistUpdater}.
+ *
+ * @param uriHash Hash of the ordered track URIs, see {@link #hash(List)}
+ * @param snapshotId Spotify's snapshot id of the playlist after the write, which changes whenever
+ *     the playlist is changed by anyone else; null if it is unknown, in which case the playlist is
+ *     written again on the next run
+ * @param descriptionPrefix Prefix of the description set by the write, without the date; null if
+ *     the description was left untouched
+ */
+public record PlaylistFingerprint(String uriHash, String snapshotId, String descriptionPrefix) {
+
+  /** SHA-256 of the URIs in playlist order, as hex string. */
+  public static String hash(List<URI> spotifyTrackUris) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    for (URI uri : spotifyTrackUris) {
+      digest.update(uri.toString().getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) '\n');
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+}
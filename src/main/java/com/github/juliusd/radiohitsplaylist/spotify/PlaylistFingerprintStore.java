@@ -0,0 +1,121 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.Optional;
+
+/**
+ * Remembers the {@link PlaylistFingerprint} of every playlist written by {@link PlaylistUpdater} in
+ * a SQLite database, so that a playlist whose tracks did not change since the last run is not
+ * written again.
+ *
+ * <p>Like {@link SqliteTrackCache} it keeps a single connection open and synchronizes all access on
+ * the store instance. There is only one write per playlist and run, so every write commits on its
+ * own.
+ */
+public class PlaylistFingerprintStore implements AutoCloseable {
+
+  private final String databasePath;
+  private final Clock clock;
+  private final Connection connection;
+  private final PreparedStatement findStatement;
+  private final PreparedStatement storeStatement;
+
+  public PlaylistFingerprintStore(String databasePath) {
+    this(databasePath, Clock.systemUTC());
+  }
+
+  /**
+   * @param databasePath Path of the SQLite database file
+   * @param clock Clock used to timestamp stored fingerprints
+   */
+  public PlaylistFingerprintStore(String databasePath, Clock clock) {
+    this.databasePath = databasePath;
+    this.clock = clock;
+    try {
+      this.connection = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to open playlist fingerprint database " + databasePath, e);
+    }
+    try {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute("PRAGMA busy_timeout = 5000");
+        stmt.execute(
+            "CREATE TABLE IF NOT EXISTS playlist_fingerprints (playlist_id TEXT PRIMARY KEY,"
+                + " uri_hash TEXT NOT NULL, snapshot_id TEXT, description_prefix TEXT,"
+                + " updated_at INTEGER NOT NULL)");
+      }
+      findStatement =
+          connection.prepareStatement(
+              "SELECT uri_hash, snapshot_id, description_prefix FROM playlist_fingerprints WHERE"
+                  + " playlist_id = ?");
+      storeStatement =
+          connection.prepareStatement(
+              "INSERT OR REPLACE INTO playlist_fingerprints (playlist_id, uri_hash, snapshot_id,"
+                  + " description_prefix, updated_at) VALUES (?, ?, ?, ?, ?)");
+    } catch (SQLException e) {
+      closeQuietly();
+      throw new SqliteException("Failed to initialize playlist fingerprint database", e);
+    }
+  }
+
+  /**
+   * @param playlistId The Spotify playlist id
+   * @return The fingerprint of the last write, empty if the playlist was never written
+   */
+  public synchronized Optional<PlaylistFingerprint> find(String playlistId) {
+    try {
+      findStatement.setString(1, playlistId);
+      try (ResultSet rs = findStatement.executeQuery()) {
+        if (!rs.next()) {
+          return Optional.empty();
+        }
+        return Optional.of(
+            new PlaylistFingerprint(
+                rs.getString("uri_hash"),
+                rs.getString("snapshot_id"),
+                rs.getString("description_prefix")));
+      }
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to load fingerprint of playlist " + playlistId, e);
+    }
+  }
+
+  /**
+   * @param playlistId The Spotify playlist id
+   * @param fingerprint The state of the playlist after it was written
+   */
+  public synchronized void store(String playlistId, PlaylistFingerprint fingerprint) {
+    try {
+      storeStatement.setString(1, playlistId);
+      storeStatement.setString(2, fingerprint.uriHash());
+      storeStatement.setString(3, fingerprint.snapshotId());
+      storeStatement.setString(4, fingerprint.descriptionPrefix());
+      storeStatement.setLong(5, clock.millis());
+      storeStatement.executeUpdate();
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to store fingerprint of playlist " + playlistId, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to close playlist fingerprint database " + databasePath, e);
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      connection.close();
+    } catch (SQLException ignored) {
+    }
+  }
+}
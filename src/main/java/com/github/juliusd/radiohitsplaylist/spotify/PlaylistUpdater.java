@@ -1,124 +1,118 @@
 package com.github.juliusd.radiohitsplaylist.spotify;
 
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.Futures;
 import com.github.juliusd.radiohitsplaylist.Track;
-import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.reflect.TypeToken;
-import java.io.IOException;
 import java.net.URI;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import org.apache.hc.core5.http.ParseException;
-import se.michaelthelin.spotify.SpotifyApi;
-import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class PlaylistUpdater {
-  private final SpotifyApi spotifyApi;
   private final TrackFinder trackFinder;
-  private final TrackCache trackCache;
-  private final Notifier notifier;
+  private final TieredTrackCache trackCache;
+  private final ExecutorService searchExecutor;
+  private final PlaylistWriter playlistWriter;
+  private final PlaylistFingerprintStore fingerprintStore;
 
+  /**
+   * @param searchExecutor Runs the Spotify searches for tracks missing in the cache; its number of
+   *     threads limits how many searches are in flight at once
+   * @param fingerprintStore Remembers the last write of every playlist to skip unchanged ones
+   */
   public PlaylistUpdater(
-      SpotifyApi spotifyApi, TrackFinder trackFinder, TrackCache trackCache, Notifier notifier) {
-    this.spotifyApi = spotifyApi;
+      TrackFinder trackFinder,
+      TieredTrackCache trackCache,
+      ExecutorService searchExecutor,
+      PlaylistWriter playlistWriter,
+      PlaylistFingerprintStore fingerprintStore) {
     this.trackFinder = trackFinder;
     this.trackCache = trackCache;
-    this.notifier = notifier;
+    this.searchExecutor = searchExecutor;
+    this.playlistWriter = playlistWriter;
+    this.fingerprintStore = fingerprintStore;
   }
 
+  /**
+   * Writes the tracks to the playlist unless the resolved tracks and the playlist itself are
+   * unchanged since the last write, which is detected by the stored {@link PlaylistFingerprint}. In
+   * that case the description is only updated if its prefix changed, so the date in the description
+   * tells when the tracks last changed. A playlist whose snapshot id was unknown after the last
+   * write is always written.
+   */
   public void update(List<Track> tracks, String playlistId, String descriptionPrefix) {
-    var spotifyTrackUris = findSpotifyTrackIds(tracks);
-    storeOnPlayList(spotifyTrackUris, playlistId);
-    updateDescription(playlistId, descriptionPrefix);
-  }
-
-  private void updateDescription(String playlistId, String descriptionPrefix) {
+    List<URI> spotifyTrackUris;
     try {
-      if (descriptionPrefix == null || descriptionPrefix.trim().isEmpty()) {
-        return;
-      }
-
-      String today = LocalDate.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
-      spotifyApi
-          .changePlaylistsDetails(playlistId)
-          .description(descriptionPrefix.trim() + " " + today)
-          .build()
-          .execute();
-    } catch (IOException | SpotifyWebApiException | ParseException e) {
-      throw new SpotifyException(e);
+      spotifyTrackUris = findSpotifyTrackIds(tracks);
+    } finally {
+      trackCache.flush();
     }
-  }
+    String uriHash = PlaylistFingerprint.hash(spotifyTrackUris);
+    String description = PlaylistWriter.datedDescription(descriptionPrefix);
+    String prefix = description != null ? descriptionPrefix.trim() : null;
 
-  private void storeOnPlayList(List<URI> spotifyTrackUris, String playlistId) {
-    try {
-      if (spotifyTrackUris.isEmpty()) {
+    Optional<PlaylistFingerprint> previous = fingerprintStore.find(playlistId);
+    if (previous.isPresent()
+        && previous.get().uriHash().equals(uriHash)
+        && previous.get().snapshotId() != null) {
+      String snapshotId = playlistWriter.loadSnapshotId(playlistId);
+      if (previous.get().snapshotId().equals(snapshotId)) {
+        if (prefix == null || prefix.equals(previous.get().descriptionPrefix())) {
+          log("Skipped unchanged playlist " + playlistId);
+          return;
+        }
+        // the snapshot id is not loaded again, at worst the next run writes the tracks once more
+        playlistWriter.updateDescription(playlistId, description);
+        fingerprintStore.store(playlistId, new PlaylistFingerprint(uriHash, snapshotId, prefix));
+        log("Updated only the description of unchanged playlist " + playlistId);
         return;
       }
+    }
 
-      List<String> trackUris = spotifyTrackUris.stream().map(URI::toString).toList();
-
-      List<String> firstChunk = trackUris.subList(0, Math.min(100, trackUris.size()));
-      JsonArray uris =
-          new Gson()
-              .toJsonTree(firstChunk, new TypeToken<List<String>>() {}.getType())
-              .getAsJsonArray();
-
-      spotifyApi.replacePlaylistsItems(playlistId, uris).build().execute();
+    String snapshotId = playlistWriter.write(playlistId, spotifyTrackUris, description);
+    fingerprintStore.store(playlistId, new PlaylistFingerprint(uriHash, snapshotId, prefix));
+  }
 
-      // Add remaining tracks in chunks of 100
-      if (trackUris.size() > 100) {
-        for (int i = 100; i < trackUris.size(); i += 100) {
-          List<String> chunk = trackUris.subList(i, Math.min(i + 100, trackUris.size()));
-          JsonArray chunkUris =
-              new Gson()
-                  .toJsonTree(chunk, new TypeToken<List<String>>() {}.getType())
-                  .getAsJsonArray();
+  List<URI> findSpotifyTrackIds(List<Track> tracks) {
+    CachedTracks cachedTracks = trackCache.findTracks(tracks);
+    Map<Track, Future<Optional<URI>>> searches = new HashMap<>();
+    for (Track track : tracks) {
+      if (!cachedTracks.uris().containsKey(track)
+          && !cachedTracks.unresolvableTracks().contains(track)) {
+        searches.computeIfAbsent(
+            track,
+            missingTrack -> searchExecutor.submit(() -> findTrackViaSpotifyApi(missingTrack)));
+      }
+    }
 
-          spotifyApi.addItemsToPlaylist(playlistId, chunkUris).build().execute();
+    try {
+      List<URI> result = new ArrayList<>(tracks.size());
+      for (Track track : tracks) {
+        URI cachedUri = cachedTracks.uris().get(track);
+        if (cachedUri != null) {
+          result.add(cachedUri);
+        } else if (searches.containsKey(track)) {
+          Futures.await(searches.get(track), SpotifyException::new).ifPresent(result::add);
         }
       }
-    } catch (IOException | SpotifyWebApiException | ParseException e) {
-      throw new SpotifyException(e);
+      return result;
+    } finally {
+      searches.values().forEach(search -> search.cancel(true));
     }
   }
 
-  private List<URI> findSpotifyTrackIds(List<Track> tracks) {
-    return tracks.stream()
-        .map(this::findTrackInCacheOrViaSpotifyApi)
-        .flatMap(Optional::stream)
-        .toList();
-  }
-
-  private Optional<URI> findTrackInCacheOrViaSpotifyApi(Track track) {
-    return trackCache
-        .findTrack(track)
-        .map(
-            uri -> {
-              notifier.recordCacheHit();
-              return uri;
-            })
-        .or(
-            () -> {
-              notifier.recordCacheMiss();
-              return trackFinder
-                  .findSpotifyTrack(track)
-                  .map(
-                      spotifyTrack -> {
-                        URI trackUri = spotifyTrack.uri();
-                        if (isExactMatch(track, spotifyTrack)) {
-                          trackCache.storeTrack(track, trackUri);
-                        }
-                        return trackUri;
-                      });
-            });
-  }
-
-  private static boolean isExactMatch(Track track, SpotifyTrack spotifyTrack) {
-    return track.artist().equals(spotifyTrack.artists().stream().collect(Collectors.joining(" & ")))
-        && track.title().equals(spotifyTrack.name());
+  private Optional<URI> findTrackViaSpotifyApi(Track track) {
+    Optional<TrackMatch> match = trackFinder.findMatch(track);
+    if (match.isEmpty()) {
+      trackCache.storeUnresolvableTrack(track);
+      return Optional.empty();
+    }
+    trackCache.storeTrack(track, match.get());
+    return Optional.of(match.get().spotifyTrack().uri());
   }
 }
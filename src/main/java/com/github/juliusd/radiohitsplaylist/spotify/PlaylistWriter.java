@@ -0,0 +1,299 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.Futures;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.model_objects.specification.PlaylistTrack;
+
+/**
+ * Writes the tracks and the description of a playlist, shared by all tasks which re-create a
+ * playlist.
+ *
+ * <p>The description does not depend on the tracks, so it is updated concurrently with them. The
+ * track requests themselves are sent one after another, as every append or insert position depends
+ * on the requests before it. All request bodies are built before the first request is sent, and the
+ * duration of every request is logged, without the time it waited for the rate limiter.
+ */
+public class PlaylistWriter {
+  private final SpotifyApi spotifyApi;
+  private final SpotifyRequestExecutor requestExecutor;
+  private final ExecutorService descriptionExecutor;
+
+  /**
+   * @param descriptionExecutor Runs the description updates while the tracks are written
+   */
+  public PlaylistWriter(
+      SpotifyApi spotifyApi,
+      SpotifyRequestExecutor requestExecutor,
+      ExecutorService descriptionExecutor) {
+    this.spotifyApi = spotifyApi;
+    this.requestExecutor = requestExecutor;
+    this.descriptionExecutor = descriptionExecutor;
+  }
+
+  /**
+   * Replaces the tracks of the playlist and sets its description.
+   *
+   * <p>If only the tracks were written, the snapshot id returned by the last track request is
+   * returned without another request. Otherwise the snapshot id is loaded after the write, as the
+   * description update changes it as well.
+   *
+   * @param playlistId The Spotify playlist id
+   * @param spotifyTrackUris The tracks in playlist order; an empty list leaves the tracks untouched
+   * @param description The new description, null to leave it untouched
+   * @return The snapshot id of the playlist after the write
+   */
+  public String write(String playlistId, List<URI> spotifyTrackUris, String description) {
+    String writtenSnapshotId = writeTracksAndDescription(playlistId, spotifyTrackUris, description);
+    if (description == null && writtenSnapshotId != null) {
+      return writtenSnapshotId;
+    }
+    return loadSnapshotId(playlistId);
+  }
+
+  /**
+   * Like {@link #write(String, List, String)}, but never loads the snapshot id, for callers which
+   * do not keep it.
+   */
+  public void replace(String playlistId, List<URI> spotifyTrackUris, String description) {
+    writeTracksAndDescription(playlistId, spotifyTrackUris, description);
+  }
+
+  /**
+   * @return The snapshot id returned by the last track request, null if it is unknown
+   */
+  private String writeTracksAndDescription(
+      String playlistId, List<URI> spotifyTrackUris, String description) {
+    Future<?> descriptionUpdate =
+        description != null
+            ? descriptionExecutor.submit(() -> updateDescription(playlistId, description))
+            : null;
+    try {
+      return writeTracks(playlistId, spotifyTrackUris);
+    } finally {
+      if (descriptionUpdate != null) {
+        Futures.await(descriptionUpdate, SpotifyException::new);
+      }
+    }
+  }
+
+  /**
+   * @param descriptionPrefix Configured prefix of the description, may be null or blank
+   * @return The prefix followed by today's date, null if there is no prefix
+   */
+  public static String datedDescription(String descriptionPrefix) {
+    if (descriptionPrefix == null || descriptionPrefix.trim().isEmpty()) {
+      return null;
+    }
+    String today = LocalDate.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+    return descriptionPrefix.trim() + " " + today;
+  }
+
+  public void updateDescription(String playlistId, String description) {
+    timed(
+        "update description of playlist " + playlistId,
+        () ->
+            spotifyApi
+                .changePlaylistsDetails(playlistId)
+                .description(description)
+                .build()
+                .execute());
+  }
+
+  public String loadSnapshotId(String playlistId) {
+    return timed(
+            "load snapshot of playlist " + playlistId,
+            () -> spotifyApi.getPlaylist(playlistId).fields("snapshot_id").build().execute())
+        .getSnapshotId();
+  }
+
+  /**
+   * Playlists with more items than fit into a single replace request are read first and only
+   * changed by a {@link PlaylistDiff}, unless replacing them needs no more requests. They are not
+   * changed at all if they already contain the tracks.
+   *
+   * @return The snapshot id returned by the last request, null if it is unknown
+   */
+  private String writeTracks(String playlistId, List<URI> spotifyTrackUris) {
+    if (spotifyTrackUris.isEmpty()) {
+      return null;
+    }
+
+    List<String> trackUris = spotifyTrackUris.stream().map(URI::toString).toList();
+    if (trackUris.size() > PlaylistDiff.MAX_ITEMS_PER_REQUEST) {
+      Optional<PlaylistItems> currentItems = loadPlaylistItems(playlistId);
+      if (currentItems.isPresent()) {
+        PlaylistDiff diff = PlaylistDiff.compute(currentItems.get().uris(), trackUris);
+        if (diff.isEmpty()) {
+          log("Playlist " + playlistId + " already contains the tracks in this order");
+          return currentItems.get().snapshotId();
+        }
+        if (!diff.isFullReplace()) {
+          return applyDiff(playlistId, currentItems.get().snapshotId(), diff);
+        }
+      }
+    }
+    return replacePlaylistItems(playlistId, trackUris);
+  }
+
+  private String replacePlaylistItems(String playlistId, List<String> trackUris) {
+    List<JsonArray> chunks = new ArrayList<>();
+    for (int i = 0; i < trackUris.size(); i += PlaylistDiff.MAX_ITEMS_PER_REQUEST) {
+      chunks.add(
+          uriArray(
+              trackUris.subList(
+                  i, Math.min(i + PlaylistDiff.MAX_ITEMS_PER_REQUEST, trackUris.size()))));
+    }
+
+    String response =
+        timed(
+            "replace tracks of playlist " + playlistId,
+            () -> spotifyApi.replacePlaylistsItems(playlistId, chunks.get(0)).build().execute());
+    String snapshotId = snapshotIdOf(response);
+    for (JsonArray chunk : chunks.subList(1, chunks.size())) {
+      snapshotId =
+          timed(
+                  "add tracks to playlist " + playlistId,
+                  () -> spotifyApi.addItemsToPlaylist(playlistId, chunk).build().execute())
+              .getSnapshotId();
+    }
+    return snapshotId;
+  }
+
+  /**
+   * @return The URIs of all items together with the snapshot they belong to, or empty if the
+   *     playlist contains items without a URI, which only a full replace can remove
+   */
+  private Optional<PlaylistItems> loadPlaylistItems(String playlistId) {
+    var playlist =
+        timed(
+            "load tracks of playlist " + playlistId,
+            () ->
+                spotifyApi
+                    .getPlaylist(playlistId)
+                    .fields("snapshot_id,tracks(total,items(track(type,uri)))")
+                    .build()
+                    .execute());
+    List<PlaylistTrack> items = new ArrayList<>(Arrays.asList(playlist.getTracks().getItems()));
+    int total = playlist.getTracks().getTotal();
+    while (items.size() < total) {
+      int offset = items.size();
+      var page =
+          timed(
+              "load tracks of playlist " + playlistId + " from " + offset,
+              () ->
+                  spotifyApi
+                      .getPlaylistsItems(playlistId)
+                      .fields("items(track(type,uri))")
+                      .offset(offset)
+                      .limit(PlaylistDiff.MAX_ITEMS_PER_REQUEST)
+                      .build()
+                      .execute());
+      if (page.getItems().length == 0) {
+        break;
+      }
+      items.addAll(Arrays.asList(page.getItems()));
+    }
+
+    List<String> uris = new ArrayList<>(items.size());
+    for (PlaylistTrack item : items) {
+      if (item.getTrack() == null || item.getTrack().getUri() == null) {
+        return Optional.empty();
+      }
+      uris.add(item.getTrack().getUri());
+    }
+    return Optional.of(new PlaylistItems(playlist.getSnapshotId(), uris));
+  }
+
+  /** Removes before inserting, as the insert positions assume that only kept items are left. */
+  private String applyDiff(String playlistId, String snapshotId, PlaylistDiff diff) {
+    List<JsonArray> removals = new ArrayList<>();
+    for (List<String> chunk : diff.removalChunks()) {
+      JsonArray tracks = new JsonArray();
+      for (String uri : chunk) {
+        JsonObject track = new JsonObject();
+        track.addProperty("uri", uri);
+        tracks.add(track);
+      }
+      removals.add(tracks);
+    }
+    List<JsonArray> insertions =
+        diff.insertions().stream().map(insertion -> uriArray(insertion.uris())).toList();
+
+    String currentSnapshotId = snapshotId;
+    for (JsonArray tracks : removals) {
+      String removalSnapshotId = currentSnapshotId;
+      currentSnapshotId =
+          timed(
+                  "remove tracks from playlist " + playlistId,
+                  () ->
+                      spotifyApi
+                          .removeItemsFromPlaylist(playlistId, tracks)
+                          .snapshotId(removalSnapshotId)
+                          .build()
+                          .execute())
+              .getSnapshotId();
+    }
+    for (int i = 0; i < insertions.size(); i++) {
+      JsonArray uris = insertions.get(i);
+      int position = diff.insertions().get(i).position();
+      currentSnapshotId =
+          timed(
+                  "insert tracks into playlist " + playlistId + " at " + position,
+                  () ->
+                      spotifyApi
+                          .addItemsToPlaylist(playlistId, uris)
+                          .position(position)
+                          .build()
+                          .execute())
+              .getSnapshotId();
+    }
+    log("Updated playlist " + playlistId + " with " + diff);
+    return currentSnapshotId;
+  }
+
+  /** Measures every attempt of the request itself, without the wait for the rate limiter. */
+  private <T> T timed(String description, SpotifyRequestExecutor.SpotifyRequest<T> request) {
+    return requestExecutor.execute(
+        description,
+        () -> {
+          long start = System.nanoTime();
+          try {
+            return request.execute();
+          } finally {
+            log("Took " + (System.nanoTime() - start) / 1_000_000 + "ms to " + description);
+          }
+        });
+  }
+
+  private static JsonArray uriArray(List<String> uris) {
+    JsonArray array = new JsonArray(uris.size());
+    uris.forEach(array::add);
+    return array;
+  }
+
+  /** Replace responses are returned as raw JSON by the client library. */
+  private static String snapshotIdOf(String response) {
+    if (response == null || response.isBlank()) {
+      return null;
+    }
+    JsonElement snapshotId = JsonParser.parseString(response).getAsJsonObject().get("snapshot_id");
+    return snapshotId != null && !snapshotId.isJsonNull() ? snapshotId.getAsString() : null;
+  }
+
+  private record PlaylistItems(String snapshotId, List<String> uris) {}
+}
@@ -0,0 +1,13 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+/** The search queries {@link TrackFinder} tries, in the order they are tried. */
+public enum QueryVariant {
+  /** {@code artist:"<artist>" track:"<title>"} */
+  QUOTED,
+  /** {@code artist:"<first artist>" track:"<title>"}, only for several artists joined by "&" */
+  FIRST_ARTIST_QUOTED,
+  /** {@code artist:<artist> track:<title>} */
+  UNQUOTED,
+  /** Artist and title without any field filter */
+  PLAIN
+}
@@ -14,10 +14,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.Normalizer;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -31,16 +31,22 @@ public class SearchAlgoComparer {
 
     var configuration = new ConfigLoader().loadConfig(System.getProperty("configFilePath"));
     var spotifyApi = new SpotifyApiConfiguration().spotifyApi(configuration);
-    var berlinHitRadioLoader = new BerlinHitRadioClientConfiguration().berlinHitRadioLoader();
-    var trackFinder = new TrackFinder(spotifyApi);
+    var trackFinder =
+        new TrackFinder(spotifyApi, new SpotifyRequestExecutor(configuration.spotifyRequests()));
     var trackFinderAlternative = new TrackFinderAlternative(spotifyApi);
 
-    String streamName =
-        configuration.reCreateBerlinHitRadioPlaylistTasks().stream()
-            .map(ReCreateBerlinHitRadioPlaylistTaskConfiguration::streamName)
-            .findFirst()
-            .orElseThrow();
-    List<Track> tracks = berlinHitRadioLoader.load(streamName);
+    ReCreateBerlinHitRadioPlaylistTaskConfiguration task =
+        configuration.reCreateBerlinHitRadioPlaylistTasks().stream().findFirst().orElseThrow();
+    var sourceExecutor = Executors.newFixedThreadPool(task.hours().size());
+    List<Track> tracks;
+    try {
+      tracks =
+          new BerlinHitRadioClientConfiguration()
+              .berlinHitRadioLoader(sourceExecutor)
+              .load(task.streamName(), task.hours());
+    } finally {
+      sourceExecutor.shutdownNow();
+    }
 
     StringBuilder stringBuilder =
         new StringBuilder(
@@ -184,8 +190,8 @@ public class SearchAlgoComparer {
             && normalize(foundTrackTitle).startsWith(normalize(givenTrackTitle))
             && normalize(foundArtists).startsWith(normalize(givenArtist));
     int levenshteinDistance =
-        calculateLevenshteinDistance(normalize(givenTrackTitle), normalize(foundTrackTitle))
-            + calculateLevenshteinDistance(normalize(givenArtist), normalize(foundArtists));
+        MatchScorer.levenshteinDistance(normalize(givenTrackTitle), normalize(foundTrackTitle))
+            + MatchScorer.levenshteinDistance(normalize(givenArtist), normalize(foundArtists));
     final String starRating;
     final int starRatingValue;
     if (completeMatch) {
@@ -269,36 +275,6 @@ public class SearchAlgoComparer {
     return item -> consumer.accept(counter.getAndIncrement(), item);
   }
 
-  static int calculateLevenshteinDistance(String first, String second) {
-    int[][] dp = new int[first.length() + 1][second.length() + 1];
-
-    for (int i = 0; i <= first.length(); i++) {
-      for (int j = 0; j <= second.length(); j++) {
-        if (i == 0) {
-          dp[i][j] = j;
-        } else if (j == 0) {
-          dp[i][j] = i;
-        } else {
-          dp[i][j] =
-              min(
-                  dp[i - 1][j - 1] + costOfSubstitution(first.charAt(i - 1), second.charAt(j - 1)),
-                  dp[i - 1][j] + 1,
-                  dp[i][j - 1] + 1);
-        }
-      }
-    }
-
-    return dp[first.length()][second.length()];
-  }
-
-  public static int costOfSubstitution(char a, char b) {
-    return a == b ? 0 : 1;
-  }
-
-  public static int min(int... numbers) {
-    return Arrays.stream(numbers).min().orElse(Integer.MAX_VALUE);
-  }
-
   private static String convertSpotifyUriToWebUrl(URI spotifyUri) {
     if (spotifyUri == null) {
       return "#";
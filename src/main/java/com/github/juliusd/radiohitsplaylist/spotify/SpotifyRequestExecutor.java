@@ -0,0 +1,167 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.config.SpotifyRequestConfiguration;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.ParseException;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.exceptions.detailed.BadGatewayException;
+import se.michaelthelin.spotify.exceptions.detailed.InternalServerErrorException;
+import se.michaelthelin.spotify.exceptions.detailed.ServiceUnavailableException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+
+/**
+ * Executes all Spotify Web API requests of a run, shared by every thread talking to Spotify.
+ *
+ * <p>Requests are spaced by a token bucket. A 429 response pauses all requests for the time given
+ * in its {@code Retry-After} header, 5xx responses are retried with a jittered exponential backoff.
+ * Time spent waiting for the token bucket or a {@code Retry-After} is counted as throttled time.
+ */
+public class SpotifyRequestExecutor {
+
+  private static final Duration DEFAULT_INITIAL_RETRY_DELAY = Duration.ofSeconds(1);
+
+  private final double requestsPerSecond;
+  private final int burst;
+  private final int maxRetries;
+  private final Duration initialRetryDelay;
+
+  private double availableTokens;
+  private long lastRefillNanos = System.nanoTime();
+  private long pausedUntilNanos = lastRefillNanos;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong rateLimitedResponseCount = new AtomicLong();
+  private final AtomicLong throttledNanos = new AtomicLong();
+
+  public SpotifyRequestExecutor(SpotifyRequestConfiguration configuration) {
+    this(
+        configuration.requestsPerSecond(),
+        configuration.burst(),
+        configuration.maxRetries(),
+        DEFAULT_INITIAL_RETRY_DELAY);
+  }
+
+  /**
+   * @param requestsPerSecond Sustained rate of requests
+   * @param burst Number of requests which may be sent at once after a quiet period
+   * @param maxRetries Retries of a request answered with 429 or 5xx before giving up
+   * @param initialRetryDelay Delay before the first retry of a 5xx response, and for a 429 response
+   *     without {@code Retry-After}
+   */
+  public SpotifyRequestExecutor(
+      double requestsPerSecond, int burst, int maxRetries, Duration initialRetryDelay) {
+    this.requestsPerSecond = requestsPerSecond;
+    this.burst = burst;
+    this.maxRetries = maxRetries;
+    this.initialRetryDelay = initialRetryDelay;
+    this.availableTokens = burst;
+  }
+
+  /**
+   * @param description Describes the request in log and error messages, e.g. "search for ..."
+   * @param request Builds and executes the request
+   * @return The response of the first successful attempt
+   * @throws SpotifyException if the request fails or all retries are used up
+   */
+  public <T> T execute(String description, SpotifyRequest<T> request) {
+    for (int attempt = 0; ; attempt++) {
+      acquirePermit(description);
+      requestCount.incrementAndGet();
+      try {
+        return request.execute();
+      } catch (TooManyRequestsException e) {
+        rateLimitedResponseCount.incrementAndGet();
+        if (attempt >= maxRetries) {
+          throw new SpotifyException(
+              "Rate limited " + (attempt + 1) + " times to " + description, e);
+        }
+        Duration retryAfter =
+            e.getRetryAfter() > 0 ? Duration.ofSeconds(e.getRetryAfter()) : initialRetryDelay;
+        log(
+            "Rate limited to "
+                + description
+                + ". Pausing requests for "
+                + retryAfter.toMillis()
+                + "ms.");
+        pauseRequests(retryAfter);
+      } catch (BadGatewayException | InternalServerErrorException | ServiceUnavailableException e) {
+        if (attempt >= maxRetries) {
+          throw new SpotifyException((attempt + 1) + " attempts to " + description + " failed", e);
+        }
+        long delayMs = retryDelayMs(attempt);
+        log(
+            e.getClass().getSimpleName()
+                + " on attempt "
+                + (attempt + 1)
+                + " to "
+                + description
+                + ". Retrying in "
+                + delayMs
+                + "ms.");
+        sleep(Duration.ofMillis(delayMs).toNanos(), description);
+      } catch (IOException | SpotifyWebApiException | ParseException e) {
+        throw new SpotifyException("Failed to " + description, e);
+      }
+    }
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getRateLimitedResponseCount() {
+    return rateLimitedResponseCount.get();
+  }
+
+  public Duration getThrottledTime() {
+    return Duration.ofNanos(throttledNanos.get());
+  }
+
+  private void acquirePermit(String description) {
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      availableTokens =
+          Math.min(burst, availableTokens + (now - lastRefillNanos) * requestsPerSecond / 1e9);
+      lastRefillNanos = now;
+      // a negative balance reserves a token which becomes available in the future
+      availableTokens -= 1;
+      long tokenWaitNanos =
+          availableTokens >= 0 ? 0 : (long) (-availableTokens / requestsPerSecond * 1e9);
+      waitNanos = Math.max(tokenWaitNanos, pausedUntilNanos - now);
+    }
+    if (waitNanos > 0) {
+      throttledNanos.addAndGet(waitNanos);
+      sleep(waitNanos, description);
+    }
+  }
+
+  private synchronized void pauseRequests(Duration duration) {
+    pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + duration.toNanos());
+  }
+
+  private long retryDelayMs(int attempt) {
+    long maxDelayMs = initialRetryDelay.toMillis() * (1L << attempt);
+    // half of the delay is random, so parallel callers do not retry in lockstep
+    return maxDelayMs / 2 + ThreadLocalRandom.current().nextLong(maxDelayMs / 2 + 1);
+  }
+
+  private static void sleep(long nanos, String description) {
+    try {
+      Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SpotifyException("Interrupted while waiting to " + description, e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface SpotifyRequest<T> {
+    T execute() throws IOException, SpotifyWebApiException, ParseException;
+  }
+}
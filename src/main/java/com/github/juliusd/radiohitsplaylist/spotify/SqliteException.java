@@ -1,7 +1,7 @@
 package com.github.juliusd.radiohitsplaylist.spotify;
 
 /** Exception thrown when SQLite operations fail in the track cache. */
-public class SqliteException extends RuntimeException {
+public class SqliteException extends TrackCacheException {
 
   public SqliteException(String message) {
     super(message);
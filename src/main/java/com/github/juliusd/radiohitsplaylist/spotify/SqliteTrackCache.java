@@ -0,0 +1,663 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link TrackCache} stored in a SQLite database, whose schema is maintained by {@link
+ * TrackCacheSchema}. Tracks are looked up with one query per {@link #LOOKUP_BATCH_SIZE} tracks
+ * instead of one query per track.
+ *
+ * <p>The cache keeps a single connection open for its whole lifetime and reuses its prepared
+ * statements, so it has to be closed once the run is finished. All access is synchronized on the
+ * cache instance, as a JDBC connection must not be used by several threads at the same time.
+ *
+ * <p>New mappings and hits are buffered in memory and written in a single transaction by {@link
+ * #flush()}, either explicitly, once the buffer is full or when the cache is closed, so a lookup
+ * never commits on its own.
+ */
+public class SqliteTrackCache implements TrackCache {
+  /**
+   * Number of tracks resolved by one batch lookup statement. Each track binds two parameters, so
+   * this stays well below SQLite's limit on host parameters.
+   */
+  static final int LOOKUP_BATCH_SIZE = 200;
+
+  static final int DEFAULT_WRITE_BUFFER_SIZE = 500;
+
+  private final String databasePath;
+  private final int writeBufferSize;
+  private final Clock clock;
+  private final Map<Track, CachedMapping> pendingWrites = new LinkedHashMap<>();
+  private final Map<Track, Instant> pendingUnresolvableTracks = new LinkedHashMap<>();
+  private final Map<String, Integer> pendingHits = new HashMap<>();
+  private final Connection connection;
+  private final PreparedStatement findTrackStatement;
+  private final PreparedStatement findTracksStatement;
+  private final PreparedStatement findUnresolvableTracksStatement;
+  private final PreparedStatement storeTrackStatement;
+  private final PreparedStatement storeUnresolvableTrackStatement;
+  private final PreparedStatement recordHitStatement;
+  private final PreparedStatement cacheSizeStatement;
+
+  public SqliteTrackCache(String databasePath) {
+    this(databasePath, DEFAULT_WRITE_BUFFER_SIZE);
+  }
+
+  /**
+   * @param databasePath Path of the SQLite database file
+   * @param writeBufferSize Number of buffered mappings that triggers a flush
+   */
+  public SqliteTrackCache(String databasePath, int writeBufferSize) {
+    this(databasePath, writeBufferSize, Clock.systemUTC());
+  }
+
+  /**
+   * @param databasePath Path of the SQLite database file
+   * @param writeBufferSize Number of buffered mappings that triggers a flush
+   * @param clock Clock used to timestamp and expire entries of unresolvable tracks
+   */
+  public SqliteTrackCache(String databasePath, int writeBufferSize, Clock clock) {
+    if (writeBufferSize < 1) {
+      throw new IllegalArgumentException("writeBufferSize must be positive: " + writeBufferSize);
+    }
+    this.databasePath = databasePath;
+    this.writeBufferSize = writeBufferSize;
+    this.clock = clock;
+    this.connection = openConnection();
+    initializeDatabase();
+    try {
+      findTrackStatement =
+          connection.prepareStatement(
+              "SELECT spotify_uri FROM tracks WHERE lookup_key = ? ORDER BY artist = ? AND title ="
+                  + " ? DESC, confidence DESC, id DESC LIMIT 1");
+      // Ascending order, so that the best mapping of a key is read last
+      findTracksStatement =
+          connection.prepareStatement(
+              "SELECT artist, title, lookup_key, spotify_uri FROM tracks WHERE confidence >= ? AND"
+                  + " lookup_key IN "
+                  + buildLookupKeyValuesSql(LOOKUP_BATCH_SIZE)
+                  + " ORDER BY confidence, id");
+      findUnresolvableTracksStatement =
+          connection.prepareStatement(
+              "SELECT artist, title FROM unresolvable_tracks WHERE checked_at >= ? AND (artist,"
+                  + " title) IN "
+                  + buildTrackValuesSql(LOOKUP_BATCH_SIZE));
+      // an update instead of a replace keeps the id and the hit count of a stored track
+      storeTrackStatement =
+          connection.prepareStatement(
+              "INSERT INTO tracks (artist, title, spotify_uri, query_variant, confidence,"
+                  + " lookup_key, validated_at, last_hit_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON"
+                  + " CONFLICT(artist, title) DO UPDATE SET spotify_uri = excluded.spotify_uri,"
+                  + " query_variant = excluded.query_variant, confidence = excluded.confidence,"
+                  + " lookup_key = excluded.lookup_key, validated_at = excluded.validated_at,"
+                  + " last_hit_at = excluded.last_hit_at");
+      storeUnresolvableTrackStatement =
+          connection.prepareStatement(
+              "INSERT OR REPLACE INTO unresolvable_tracks (artist, title, checked_at) VALUES (?,"
+                  + " ?, ?)");
+      recordHitStatement =
+          connection.prepareStatement(
+              "UPDATE tracks SET last_hit_at = ?, hit_count = hit_count + ? WHERE lookup_key = ?");
+      cacheSizeStatement = connection.prepareStatement("SELECT COUNT(*) FROM tracks");
+    } catch (SQLException e) {
+      closeQuietly();
+      throw new SqliteException("Failed to prepare track cache statements", e);
+    }
+  }
+
+  private Connection openConnection() {
+    try {
+      Connection conn = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+      try (Statement stmt = conn.createStatement()) {
+        // WAL lets readers and the single writer work without blocking each other and turns most
+        // commits into sequential appends instead of rewriting the rollback journal.
+        stmt.execute("PRAGMA journal_mode = WAL");
+        // NORMAL is durable in WAL mode except for the last commits on power loss, which is
+        // acceptable for a cache that can always be refilled from Spotify.
+        stmt.execute("PRAGMA synchronous = NORMAL");
+        stmt.execute("PRAGMA temp_store = MEMORY");
+        // Negative values are in KiB, so this allows roughly 8 MB of page cache.
+        stmt.execute("PRAGMA cache_size = -8000");
+        stmt.execute("PRAGMA busy_timeout = 5000");
+      }
+      return conn;
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to open track cache database " + databasePath, e);
+    }
+  }
+
+  /** Creates or upgrades the schema, see {@link TrackCacheSchema}. */
+  private void initializeDatabase() {
+    try {
+      TrackCacheSchema.migrate(connection);
+    } catch (SQLException | RuntimeException e) {
+      closeQuietly();
+      throw new SqliteException("Failed to initialize track cache database", e);
+    }
+  }
+
+  @Override
+  public synchronized Optional<URI> findTrack(Track track) {
+    CachedMapping pendingMapping = pendingWrites.get(track);
+    if (pendingMapping != null) {
+      return Optional.of(pendingMapping.spotifyUri());
+    }
+    String lookupKey = TrackNormalizer.lookupKey(track);
+    Optional<URI> pendingSpelling =
+        pendingWrites.values().stream()
+            .filter(mapping -> mapping.lookupKey().equals(lookupKey))
+            .max(Comparator.comparingDouble(CachedMapping::confidence))
+            .map(CachedMapping::spotifyUri);
+    if (pendingSpelling.isPresent()) {
+      return pendingSpelling;
+    }
+    try {
+      findTrackStatement.setString(1, lookupKey);
+      findTrackStatement.setString(2, track.artist());
+      findTrackStatement.setString(3, track.title());
+
+      try (ResultSet rs = findTrackStatement.executeQuery()) {
+        if (rs.next()) {
+          String spotifyUri = rs.getString("spotify_uri");
+          return Optional.of(URI.create(spotifyUri));
+        } else {
+          return Optional.empty();
+        }
+      }
+    } catch (SQLException e) {
+      throw new SqliteException(
+          "Failed to lookup track in cache for artist '"
+              + track.artist()
+              + "' and title '"
+              + track.title()
+              + "'",
+          e);
+    }
+  }
+
+  @Override
+  public synchronized Map<Track, URI> findTracks(Collection<Track> tracks, double minConfidence) {
+    Set<Track> distinctTracks = new LinkedHashSet<>(tracks);
+    Map<Track, String> lookupKeys = new HashMap<>();
+    distinctTracks.forEach(track -> lookupKeys.put(track, TrackNormalizer.lookupKey(track)));
+    List<String> distinctKeys = List.copyOf(new LinkedHashSet<>(lookupKeys.values()));
+
+    Map<Track, URI> exactMatches = new HashMap<>();
+    Map<String, URI> keyMatches = new HashMap<>();
+    for (int i = 0; i < distinctKeys.size(); i += LOOKUP_BATCH_SIZE) {
+      List<String> batch =
+          distinctKeys.subList(i, Math.min(i + LOOKUP_BATCH_SIZE, distinctKeys.size()));
+      findTracksBatch(batch, minConfidence, exactMatches, keyMatches);
+    }
+    for (Map.Entry<Track, CachedMapping> entry : pendingWrites.entrySet()) {
+      CachedMapping pendingMapping = entry.getValue();
+      if (pendingMapping.confidence() >= minConfidence) {
+        exactMatches.put(entry.getKey(), pendingMapping.spotifyUri());
+        keyMatches.merge(
+            pendingMapping.lookupKey(), pendingMapping.spotifyUri(), (stored, pending) -> pending);
+      }
+    }
+
+    Map<Track, URI> result = new HashMap<>();
+    for (Track track : distinctTracks) {
+      URI uri = exactMatches.get(track);
+      if (uri == null) {
+        uri = keyMatches.get(lookupKeys.get(track));
+      }
+      if (uri != null) {
+        result.put(track, uri);
+        pendingHits.merge(lookupKeys.get(track), 1, Integer::sum);
+      }
+    }
+    flushIfBufferIsFull();
+    return result;
+  }
+
+  @Override
+  public synchronized void recordHits(Collection<Track> tracks) {
+    tracks.forEach(track -> pendingHits.merge(TrackNormalizer.lookupKey(track), 1, Integer::sum));
+    flushIfBufferIsFull();
+  }
+
+  private void findTracksBatch(
+      List<String> batch,
+      double minConfidence,
+      Map<Track, URI> exactMatches,
+      Map<String, URI> keyMatches) {
+    try {
+      findTracksStatement.setDouble(1, minConfidence);
+      // A shorter batch repeats its last key, so every batch reuses the same prepared statement
+      for (int i = 0; i < LOOKUP_BATCH_SIZE; i++) {
+        findTracksStatement.setString(2 + i, batch.get(Math.min(i, batch.size() - 1)));
+      }
+
+      try (ResultSet rs = findTracksStatement.executeQuery()) {
+        while (rs.next()) {
+          URI uri = URI.create(rs.getString("spotify_uri"));
+          exactMatches.put(new Track(rs.getString("title"), rs.getString("artist")), uri);
+          keyMatches.put(rs.getString("lookup_key"), uri);
+        }
+      }
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to lookup " + batch.size() + " tracks in cache", e);
+    }
+  }
+
+  @Override
+  public synchronized Set<Track> findUnresolvableTracks(Collection<Track> tracks, Duration maxAge) {
+    Instant checkedAfter = clock.instant().minus(maxAge);
+    List<Track> distinctTracks = List.copyOf(new LinkedHashSet<>(tracks));
+    Set<Track> result = new HashSet<>();
+    for (int i = 0; i < distinctTracks.size(); i += LOOKUP_BATCH_SIZE) {
+      List<Track> batch =
+          distinctTracks.subList(i, Math.min(i + LOOKUP_BATCH_SIZE, distinctTracks.size()));
+      try {
+        findUnresolvableTracksStatement.setLong(1, checkedAfter.toEpochMilli());
+        bindTrackValues(findUnresolvableTracksStatement, 2, batch);
+        try (ResultSet rs = findUnresolvableTracksStatement.executeQuery()) {
+          while (rs.next()) {
+            result.add(new Track(rs.getString("title"), rs.getString("artist")));
+          }
+        }
+      } catch (SQLException e) {
+        throw new SqliteException(
+            "Failed to lookup " + batch.size() + " unresolvable tracks in cache", e);
+      }
+    }
+    distinctTracks.stream()
+        .filter(track -> isPendingAndCheckedAfter(track, checkedAfter))
+        .forEach(result::add);
+    return result;
+  }
+
+  private boolean isPendingAndCheckedAfter(Track track, Instant checkedAfter) {
+    Instant checkedAt = pendingUnresolvableTracks.get(track);
+    return checkedAt != null && !checkedAt.isBefore(checkedAfter);
+  }
+
+  /**
+   * Binds a batch of tracks to the parameters created by {@link #buildTrackValuesSql(int)}. The
+   * statement always binds a full batch; a shorter batch repeats its last track, which does not
+   * change the result but lets every batch reuse the same prepared statement.
+   */
+  private static void bindTrackValues(
+      PreparedStatement statement, int firstParameterIndex, List<Track> batch) throws SQLException {
+    for (int i = 0; i < LOOKUP_BATCH_SIZE; i++) {
+      Track track = batch.get(Math.min(i, batch.size() - 1));
+      statement.setString(firstParameterIndex + 2 * i, track.artist());
+      statement.setString(firstParameterIndex + 2 * i + 1, track.title());
+    }
+  }
+
+  private static String buildLookupKeyValuesSql(int batchSize) {
+    var sql = new StringBuilder("(");
+    for (int i = 0; i < batchSize; i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    return sql.append(")").toString();
+  }
+
+  private static String buildTrackValuesSql(int batchSize) {
+    var sql = new StringBuilder("(VALUES ");
+    for (int i = 0; i < batchSize; i++) {
+      sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+    }
+    return sql.append(")").toString();
+  }
+
+  @Override
+  public synchronized Map<Track, URI> loadTracks(int limit, double minConfidence) {
+    flush();
+    try (PreparedStatement pstmt =
+        connection.prepareStatement(
+            "SELECT artist, title, spotify_uri FROM tracks WHERE confidence >= ? ORDER BY id DESC"
+                + " LIMIT ?")) {
+      pstmt.setDouble(1, minConfidence);
+      pstmt.setInt(2, limit);
+      Map<Track, URI> result = new LinkedHashMap<>();
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          result.put(
+              new Track(rs.getString("title"), rs.getString("artist")),
+              URI.create(rs.getString("spotify_uri")));
+        }
+      }
+      return result;
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to load tracks from cache", e);
+    }
+  }
+
+  @Override
+  public synchronized Map<Track, URI> loadHotTracks(int limit, double minConfidence) {
+    flush();
+    try (PreparedStatement pstmt =
+        connection.prepareStatement(
+            "SELECT artist, title, spotify_uri FROM tracks WHERE confidence >= ? AND hit_count > 0"
+                + " ORDER BY hit_count DESC, last_hit_at DESC LIMIT ?")) {
+      pstmt.setDouble(1, minConfidence);
+      pstmt.setInt(2, limit);
+      Map<Track, URI> result = new LinkedHashMap<>();
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          result.put(
+              new Track(rs.getString("title"), rs.getString("artist")),
+              URI.create(rs.getString("spotify_uri")));
+        }
+      }
+      return result;
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to load hot tracks from cache", e);
+    }
+  }
+
+  @Override
+  public synchronized void storeTrack(
+      Track track, URI spotifyUri, QueryVariant queryVariant, double confidence) {
+    pendingWrites.put(
+        track,
+        new CachedMapping(spotifyUri, queryVariant, confidence, TrackNormalizer.lookupKey(track)));
+    flushIfBufferIsFull();
+  }
+
+  @Override
+  public synchronized void storeUnresolvableTrack(Track track) {
+    pendingUnresolvableTracks.put(track, clock.instant());
+    flushIfBufferIsFull();
+  }
+
+  @Override
+  public synchronized List<URI> findStaleTracks(Duration maxAge, int limit) {
+    flush();
+    try (PreparedStatement pstmt =
+        connection.prepareStatement(
+            "SELECT spotify_uri FROM tracks WHERE validated_at < ? GROUP BY spotify_uri ORDER BY"
+                + " MIN(validated_at) LIMIT ?")) {
+      pstmt.setLong(1, clock.instant().minus(maxAge).toEpochMilli());
+      pstmt.setInt(2, limit);
+      List<URI> result = new ArrayList<>();
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          result.add(URI.create(rs.getString("spotify_uri")));
+        }
+      }
+      return result;
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to find stale tracks in cache", e);
+    }
+  }
+
+  @Override
+  public synchronized void storeRevalidatedTracks(Map<URI, Optional<URI>> currentUris) {
+    if (currentUris.isEmpty()) {
+      return;
+    }
+    flush();
+    try (PreparedStatement update =
+            connection.prepareStatement(
+                "UPDATE tracks SET spotify_uri = ?, validated_at = ? WHERE spotify_uri = ?");
+        PreparedStatement delete =
+            connection.prepareStatement("DELETE FROM tracks WHERE spotify_uri = ?")) {
+      long now = clock.instant().toEpochMilli();
+      connection.setAutoCommit(false);
+      try {
+        for (Map.Entry<URI, Optional<URI>> entry : currentUris.entrySet()) {
+          if (entry.getValue().isPresent()) {
+            update.setString(1, entry.getValue().get().toString());
+            update.setLong(2, now);
+            update.setString(3, entry.getKey().toString());
+            update.addBatch();
+          } else {
+            delete.setString(1, entry.getKey().toString());
+            delete.addBatch();
+          }
+        }
+        update.executeBatch();
+        delete.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new SqliteException(
+          "Failed to store " + currentUris.size() + " revalidated tracks in cache", e);
+    }
+  }
+
+  @Override
+  public synchronized int evictLeastRecentlyUsed(int maxSize) {
+    flush();
+    try (PreparedStatement pstmt =
+        connection.prepareStatement(
+            "DELETE FROM tracks WHERE id IN (SELECT id FROM tracks ORDER BY last_hit_at DESC, id"
+                + " DESC LIMIT -1 OFFSET ?)")) {
+      pstmt.setInt(1, maxSize);
+      return pstmt.executeUpdate();
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to evict tracks from cache", e);
+    }
+  }
+
+  @Override
+  public synchronized List<TrackCacheEntry> exportEntries() {
+    flush();
+    try (PreparedStatement pstmt =
+            connection.prepareStatement(
+                "SELECT artist, title, spotify_uri, query_variant, confidence, validated_at,"
+                    + " last_hit_at, hit_count FROM tracks");
+        ResultSet rs = pstmt.executeQuery()) {
+      List<TrackCacheEntry> result = new ArrayList<>();
+      while (rs.next()) {
+        String queryVariant = rs.getString("query_variant");
+        result.add(
+            new TrackCacheEntry(
+                new Track(rs.getString("title"), rs.getString("artist")),
+                URI.create(rs.getString("spotify_uri")),
+                queryVariant != null ? QueryVariant.valueOf(queryVariant) : null,
+                rs.getDouble("confidence"),
+                Instant.ofEpochMilli(rs.getLong("validated_at")),
+                Instant.ofEpochMilli(rs.getLong("last_hit_at")),
+                rs.getInt("hit_count")));
+      }
+      return result;
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to export tracks from cache", e);
+    }
+  }
+
+  /** Writes all entries in a single transaction. Replaced mappings keep their id. */
+  @Override
+  public synchronized void importEntries(Collection<TrackCacheEntry> entries) {
+    flush();
+    try (PreparedStatement pstmt =
+        connection.prepareStatement(
+            "INSERT INTO tracks (artist, title, spotify_uri, query_variant, confidence,"
+                + " lookup_key, validated_at, last_hit_at, hit_count) VALUES (?, ?, ?, ?, ?, ?, ?,"
+                + " ?, ?) ON CONFLICT(artist, title) DO UPDATE SET spotify_uri ="
+                + " excluded.spotify_uri, query_variant = excluded.query_variant, confidence ="
+                + " excluded.confidence, lookup_key = excluded.lookup_key, validated_at ="
+                + " excluded.validated_at, last_hit_at = excluded.last_hit_at, hit_count ="
+                + " excluded.hit_count")) {
+      connection.setAutoCommit(false);
+      try {
+        for (TrackCacheEntry entry : entries) {
+          pstmt.setString(1, entry.track().artist());
+          pstmt.setString(2, entry.track().title());
+          pstmt.setString(3, entry.spotifyUri().toString());
+          if (entry.queryVariant() != null) {
+            pstmt.setString(4, entry.queryVariant().name());
+          } else {
+            pstmt.setNull(4, Types.VARCHAR);
+          }
+          pstmt.setDouble(5, entry.confidence());
+          pstmt.setString(6, TrackNormalizer.lookupKey(entry.track()));
+          pstmt.setLong(7, entry.validatedAt().toEpochMilli());
+          pstmt.setLong(8, entry.lastHitAt().toEpochMilli());
+          pstmt.setInt(9, entry.hitCount());
+          pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to import " + entries.size() + " tracks into cache", e);
+    }
+  }
+
+  private void flushIfBufferIsFull() {
+    if (pendingWrites.size() + pendingUnresolvableTracks.size() + pendingHits.size()
+        >= writeBufferSize) {
+      flush();
+    }
+  }
+
+  /** Writes all buffered entries to the database in a single transaction. */
+  @Override
+  public synchronized void flush() {
+    if (pendingWrites.isEmpty() && pendingUnresolvableTracks.isEmpty() && pendingHits.isEmpty()) {
+      return;
+    }
+    long now = clock.instant().toEpochMilli();
+    try {
+      connection.setAutoCommit(false);
+      try {
+        for (Map.Entry<Track, CachedMapping> entry : pendingWrites.entrySet()) {
+          CachedMapping mapping = entry.getValue();
+          storeTrackStatement.setString(1, entry.getKey().artist());
+          storeTrackStatement.setString(2, entry.getKey().title());
+          storeTrackStatement.setString(3, mapping.spotifyUri().toString());
+          if (mapping.queryVariant() != null) {
+            storeTrackStatement.setString(4, mapping.queryVariant().name());
+          } else {
+            storeTrackStatement.setNull(4, Types.VARCHAR);
+          }
+          storeTrackStatement.setDouble(5, mapping.confidence());
+          storeTrackStatement.setString(6, mapping.lookupKey());
+          storeTrackStatement.setLong(7, now);
+          storeTrackStatement.setLong(8, now);
+          storeTrackStatement.addBatch();
+        }
+        storeTrackStatement.executeBatch();
+        for (Map.Entry<Track, Instant> entry : pendingUnresolvableTracks.entrySet()) {
+          storeUnresolvableTrackStatement.setString(1, entry.getKey().artist());
+          storeUnresolvableTrackStatement.setString(2, entry.getKey().title());
+          storeUnresolvableTrackStatement.setLong(3, entry.getValue().toEpochMilli());
+          storeUnresolvableTrackStatement.addBatch();
+        }
+        storeUnresolvableTrackStatement.executeBatch();
+        for (Map.Entry<String, Integer> hits : pendingHits.entrySet()) {
+          recordHitStatement.setLong(1, now);
+          recordHitStatement.setInt(2, hits.getValue());
+          recordHitStatement.setString(3, hits.getKey());
+          recordHitStatement.addBatch();
+        }
+        recordHitStatement.executeBatch();
+        connection.commit();
+        pendingWrites.clear();
+        pendingUnresolvableTracks.clear();
+        pendingHits.clear();
+      } catch (SQLException e) {
+        storeTrackStatement.clearBatch();
+        storeUnresolvableTrackStatement.clearBatch();
+        recordHitStatement.clearBatch();
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new SqliteException(
+          "Failed to store "
+              + (pendingWrites.size() + pendingUnresolvableTracks.size())
+              + " entries in cache",
+          e);
+    }
+  }
+
+  @Override
+  public synchronized void clearCache() {
+    pendingWrites.clear();
+    pendingUnresolvableTracks.clear();
+    pendingHits.clear();
+    try (Statement stmt = connection.createStatement()) {
+
+      stmt.executeUpdate("DELETE FROM tracks");
+      stmt.executeUpdate("DELETE FROM unresolvable_tracks");
+
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to clear track cache", e);
+    }
+  }
+
+  @Override
+  public synchronized long getCacheSize() {
+    flush();
+    try (ResultSet rs = cacheSizeStatement.executeQuery()) {
+
+      if (rs.next()) {
+        return rs.getLong(1);
+      }
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to get cache size", e);
+    }
+
+    throw new SqliteException("Failed to get cache size");
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      flush();
+    } finally {
+      closeConnection();
+    }
+  }
+
+  private void closeConnection() {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      throw new SqliteException("Failed to close track cache database " + databasePath, e);
+    }
+  }
+
+  private record CachedMapping(
+      URI spotifyUri, QueryVariant queryVariant, double confidence, String lookupKey) {}
+
+  private void closeQuietly() {
+    try {
+      connection.close();
+    } catch (SQLException ignored) {
+    }
+  }
+}
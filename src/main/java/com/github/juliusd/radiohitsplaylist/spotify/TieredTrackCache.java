@@ -0,0 +1,211 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.monitoring.CacheTier;
+import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded in-memory cache in front of the SQLite {@link TrackCache}. Many stations play the same
+ * hits, so repeated lookups within a run are answered from memory without touching the database.
+ * The least recently used mappings are evicted once the memory tier is full. The memory tier is
+ * keyed by the {@link TrackNormalizer#normalize(Track) normalized} track, so different spellings of
+ * the same track share one entry.
+ *
+ * <p>Only mappings with a match confidence of at least {@code minConfidence} are served from the
+ * cache; less certain matches are stored but searched again on the next lookup.
+ *
+ * <p>Tracks which could not be found on Spotify are only remembered in the database tier and count
+ * as cache hits while their entry is younger than the negative cache TTL.
+ *
+ * <p>Every lookup is recorded per tier via {@link Notifier#recordCacheHit(CacheTier)} and {@link
+ * Notifier#recordCacheMiss(CacheTier)}, the memory tier only if it is enabled.
+ *
+ * <p>Only the memory tier is guarded by a lock, so concurrent lookups of several playlists do not
+ * wait for each other's database queries.
+ */
+public class TieredTrackCache {
+  private final TrackCache trackCache;
+  private final Notifier notifier;
+  private final int memoryCacheSize;
+  private final Duration negativeCacheTtl;
+  private final double minConfidence;
+  private final Map<Track, URI> memoryCache;
+
+  /**
+   * @param trackCache The database tier
+   * @param memoryCacheSize Maximum number of mappings kept in memory, 0 disables the memory tier
+   * @param negativeCacheTtl How long unresolvable tracks are not searched again, zero disables
+   *     negative caching
+   * @param minConfidence Minimum match confidence of a cached mapping to be trusted
+   * @param notifier Receives the hits and misses of each tier
+   */
+  public TieredTrackCache(
+      TrackCache trackCache,
+      int memoryCacheSize,
+      Duration negativeCacheTtl,
+      double minConfidence,
+      Notifier notifier) {
+    if (memoryCacheSize < 0) {
+      throw new IllegalArgumentException(
+          "memoryCacheSize must not be negative: " + memoryCacheSize);
+    }
+    this.trackCache = trackCache;
+    this.notifier = notifier;
+    this.memoryCacheSize = memoryCacheSize;
+    this.negativeCacheTtl = negativeCacheTtl;
+    this.minConfidence = minConfidence;
+    this.memoryCache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Track, URI> eldest) {
+            return size() > memoryCacheSize;
+          }
+        };
+  }
+
+  /**
+   * Fills the memory tier with the most recently stored mappings of the database.
+   *
+   * @return Number of preloaded mappings
+   */
+  public int preload() {
+    if (memoryCacheSize == 0) {
+      return 0;
+    }
+    Map<Track, URI> tracks = trackCache.loadTracks(memoryCacheSize, minConfidence);
+    putInMemory(tracks);
+    return tracks.size();
+  }
+
+  /**
+   * Fills the memory tier with the most frequently found mappings of the database, see {@link
+   * TrackCache#loadHotTracks(int, double)}. The hottest mappings are the last to be evicted.
+   *
+   * @param n Maximum number of mappings to preload, limited by the size of the memory tier
+   * @return Number of preloaded mappings
+   */
+  public int preloadHotSet(int n) {
+    int limit = Math.min(n, memoryCacheSize);
+    if (limit <= 0) {
+      return 0;
+    }
+    List<Map.Entry<Track, URI>> hotTracks =
+        new ArrayList<>(trackCache.loadHotTracks(limit, minConfidence).entrySet());
+    Collections.reverse(hotTracks);
+    Map<Track, URI> coldestFirst = new LinkedHashMap<>();
+    hotTracks.forEach(entry -> coldestFirst.put(entry.getKey(), entry.getValue()));
+    putInMemory(coldestFirst);
+    return hotTracks.size();
+  }
+
+  /**
+   * Looks up several tracks, first in memory and then in the database for the remaining ones.
+   *
+   * @param tracks The tracks to search for, may contain duplicates
+   * @return The Spotify URIs and the unresolvable tracks found in the cache
+   */
+  public CachedTracks findTracks(Collection<Track> tracks) {
+    Map<Track, URI> result = new HashMap<>();
+    List<Track> memoryMisses = new ArrayList<>();
+    if (memoryCacheSize == 0) {
+      memoryMisses.addAll(new LinkedHashSet<>(tracks));
+    } else {
+      synchronized (memoryCache) {
+        for (Track track : new LinkedHashSet<>(tracks)) {
+          URI uri = memoryCache.get(TrackNormalizer.normalize(track));
+          if (uri != null) {
+            result.put(track, uri);
+          } else {
+            memoryMisses.add(track);
+          }
+        }
+      }
+      result.keySet().forEach(track -> notifier.recordCacheHit(CacheTier.MEMORY));
+      memoryMisses.forEach(track -> notifier.recordCacheMiss(CacheTier.MEMORY));
+    }
+    if (!result.isEmpty()) {
+      // keeps tracks served from memory from being evicted from the database
+      trackCache.recordHits(result.keySet());
+    }
+
+    if (memoryMisses.isEmpty()) {
+      return new CachedTracks(result, Set.of());
+    }
+
+    Map<Track, URI> databaseHits = trackCache.findTracks(memoryMisses, minConfidence);
+    putInMemory(databaseHits);
+    List<Track> databaseMisses = new ArrayList<>();
+    for (Track track : memoryMisses) {
+      URI uri = databaseHits.get(track);
+      if (uri != null) {
+        notifier.recordCacheHit(CacheTier.DATABASE);
+        result.put(track, uri);
+      } else {
+        databaseMisses.add(track);
+      }
+    }
+
+    Set<Track> unresolvableTracks =
+        databaseMisses.isEmpty() || negativeCacheTtl.isZero()
+            ? Set.of()
+            : trackCache.findUnresolvableTracks(databaseMisses, negativeCacheTtl);
+    for (Track track : databaseMisses) {
+      if (unresolvableTracks.contains(track)) {
+        notifier.recordCacheHit(CacheTier.DATABASE);
+      } else {
+        notifier.recordCacheMiss(CacheTier.DATABASE);
+      }
+    }
+    return new CachedTracks(result, unresolvableTracks);
+  }
+
+  /**
+   * Stores a search match in the database and, if it is trusted, in memory.
+   *
+   * @param track The original track
+   * @param match The Spotify track found for this track
+   */
+  public void storeTrack(Track track, TrackMatch match) {
+    URI spotifyUri = match.spotifyTrack().uri();
+    if (match.confidence() >= minConfidence) {
+      putInMemory(Map.of(track, spotifyUri));
+    }
+    trackCache.storeTrack(track, spotifyUri, match.queryVariant(), match.confidence());
+  }
+
+  /**
+   * Remembers that a track could not be found on Spotify, unless negative caching is disabled.
+   *
+   * @param track The track which could not be found
+   */
+  public void storeUnresolvableTrack(Track track) {
+    if (!negativeCacheTtl.isZero()) {
+      trackCache.storeUnresolvableTrack(track);
+    }
+  }
+
+  /** Writes buffered mappings of the database tier. */
+  public void flush() {
+    trackCache.flush();
+  }
+
+  private void putInMemory(Map<Track, URI> tracks) {
+    if (memoryCacheSize == 0 || tracks.isEmpty()) {
+      return;
+    }
+    synchronized (memoryCache) {
+      tracks.forEach((track, uri) -> memoryCache.put(TrackNormalizer.normalize(track), uri));
+    }
+  }
+}
@@ -1,158 +1,195 @@
 package com.github.juliusd.radiohitsplaylist.spotify;
 
 import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.config.TrackCacheBackend;
 import java.net.URI;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
- * SQLite-based cache for storing and retrieving Spotify track URIs based on artist and title. This
- * cache provides exact match lookup to avoid redundant Spotify API calls.
+ * Persistent cache of the Spotify track found for a radio track, which avoids redundant Spotify API
+ * calls.
+ *
+ * <p>Mappings are looked up by the {@link TrackNormalizer#lookupKey(Track) lookup key}, so
+ * different spellings of the same track, e.g. {@code "Dua Lipa & DaBaby"} and {@code "Dua Lipa,
+ * DaBaby"}, share their mapping. If several spellings were stored, the mapping of the exact
+ * spelling wins, otherwise the one with the highest confidence. Each mapping carries the confidence
+ * of the search match which produced it, so callers can decide which fuzzy matches they trust.
+ *
+ * <p>Besides the mappings, the cache remembers tracks which could not be found on Spotify at all,
+ * so that they are not searched again until their entry is older than the negative cache TTL.
+ *
+ * <p>Each mapping records when it was last confirmed by Spotify, and when and how often it was
+ * found by {@link #findTracks(Collection, double)} or {@link #recordHits(Collection)}. The first
+ * lets {@link TrackCacheRevalidator} recheck old mappings, the others let {@link
+ * #evictLeastRecentlyUsed(int)} bound the size of the cache and {@link #loadHotTracks(int, double)}
+ * find the tracks worth preloading.
+ *
+ * <p>Writes may be buffered until {@link #flush()}, but lookups see them right away. A cache must
+ * be closed once the run is finished; implementations are safe to use from several threads.
  */
-public class TrackCache {
-  private final String databasePath;
+public interface TrackCache extends AutoCloseable {
 
-  public TrackCache(String databasePath) {
-    this.databasePath = databasePath;
-    initializeDatabase();
-  }
-
-  /** Initializes the SQLite database and creates the tracks table if it doesn't exist. */
-  private void initializeDatabase() {
-    try (Connection conn = getConnection();
-        Statement stmt = conn.createStatement()) {
-
-      // Create tracks table
-      String createTableSql =
-          """
-          CREATE TABLE IF NOT EXISTS tracks (
-            id INTEGER PRIMARY KEY AUTOINCREMENT,
-            artist TEXT NOT NULL,
-            title TEXT NOT NULL,
-            spotify_uri TEXT NOT NULL,
-            created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-            UNIQUE(artist, title)
-          )
-          """;
-      stmt.execute(createTableSql);
-
-      // Create index for fast lookups
-      String createIndexSql =
-          """
-          CREATE INDEX IF NOT EXISTS idx_artist_title ON tracks(artist, title)
-          """;
-      stmt.execute(createIndexSql);
-
-    } catch (SQLException e) {
-      throw new SqliteException("Failed to initialize track cache database", e);
-    }
+  /**
+   * Opens the cache of the backend in the working directory.
+   *
+   * @param backend The configured backend
+   * @return The opened cache, which the caller has to close
+   */
+  static TrackCache open(TrackCacheBackend backend) {
+    return switch (backend) {
+      case SQLITE -> new SqliteTrackCache("track_cache.db");
+      case APPEND_LOG -> new AppendLogTrackCache("track_cache.log");
+    };
   }
 
   /**
-   * Checks if a track with the exact artist and title exists in the cache.
+   * Checks if the track or another spelling of it exists in the cache, regardless of the confidence
+   * of its mapping.
    *
    * @param track The track to search for
    * @return Optional containing the Spotify URI if found, empty otherwise
    */
-  public Optional<URI> findTrack(Track track) {
-    String sql = "SELECT spotify_uri FROM tracks WHERE artist = ? AND title = ?";
-
-    try (Connection conn = getConnection();
-        PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-      pstmt.setString(1, track.artist());
-      pstmt.setString(2, track.title());
-
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          String spotifyUri = rs.getString("spotify_uri");
-          return Optional.of(URI.create(spotifyUri));
-        } else {
-          return Optional.empty();
-        }
-      }
-    } catch (SQLException e) {
-      throw new SqliteException(
-          "Failed to lookup track in cache for artist '"
-              + track.artist()
-              + "' and title '"
-              + track.title()
-              + "'",
-          e);
-    }
+  Optional<URI> findTrack(Track track);
+
+  /**
+   * Looks up several tracks at once. Found tracks count as hits, see {@link
+   * #recordHits(Collection)}.
+   *
+   * @param tracks The tracks to search for, may contain duplicates
+   * @param minConfidence Mappings with a lower match confidence are ignored
+   * @return Map from each cached track to its Spotify URI; tracks not in the cache are absent
+   */
+  Map<Track, URI> findTracks(Collection<Track> tracks, double minConfidence);
+
+  /**
+   * Marks the mappings of the tracks as recently used, so that they are the last ones to be
+   * evicted, and counts the hits.
+   *
+   * @param tracks Tracks which were found in a cache in front of this one
+   */
+  void recordHits(Collection<Track> tracks);
+
+  /**
+   * Finds the tracks which were recently found to be not available on Spotify.
+   *
+   * @param tracks The tracks to check, may contain duplicates
+   * @param maxAge Entries older than this are ignored, so that the tracks are searched again
+   * @return The tracks with a fresh unresolvable entry
+   */
+  Set<Track> findUnresolvableTracks(Collection<Track> tracks, Duration maxAge);
+
+  /**
+   * Loads the most recently stored mappings.
+   *
+   * @param limit Maximum number of mappings to load
+   * @param minConfidence Mappings with a lower match confidence are ignored
+   * @return Mappings ordered from the most recently to the least recently stored one
+   */
+  Map<Track, URI> loadTracks(int limit, double minConfidence);
+
+  /**
+   * Loads the most frequently found mappings, which for radio stations rotating the same few
+   * hundred songs cover most lookups.
+   *
+   * @param limit Maximum number of mappings to load
+   * @param minConfidence Mappings with a lower match confidence are ignored
+   * @return Mappings ordered from the most to the least frequently found one
+   */
+  Map<Track, URI> loadHotTracks(int limit, double minConfidence);
+
+  /**
+   * Stores an exact track mapping in the cache.
+   *
+   * @param track The original track
+   * @param spotifyUri The Spotify URI found for this track
+   */
+  default void storeTrack(Track track, URI spotifyUri) {
+    storeTrack(track, spotifyUri, null, MatchScorer.EXACT_MATCH);
   }
 
   /**
-   * Stores a track mapping in the cache.
+   * Stores a track mapping in the cache, replacing the mapping of the same spelling.
    *
    * @param track The original track
    * @param spotifyUri The Spotify URI found for this track
+   * @param queryVariant The query which found the Spotify track, may be null
+   * @param confidence The confidence of the match, see {@link TrackMatch#confidence()}
    */
-  public void storeTrack(Track track, URI spotifyUri) {
-    String sql = "INSERT OR REPLACE INTO tracks (artist, title, spotify_uri) VALUES (?, ?, ?)";
+  void storeTrack(Track track, URI spotifyUri, QueryVariant queryVariant, double confidence);
 
-    try (Connection conn = getConnection();
-        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+  /**
+   * Remembers that a track could not be found on Spotify.
+   *
+   * @param track The track which could not be found
+   */
+  void storeUnresolvableTrack(Track track);
 
-      pstmt.setString(1, track.artist());
-      pstmt.setString(2, track.title());
-      pstmt.setString(3, spotifyUri.toString());
+  /**
+   * Finds the Spotify tracks whose mappings have not been confirmed for a while.
+   *
+   * @param maxAge Mappings validated longer ago are stale
+   * @param limit Maximum number of Spotify tracks to return
+   * @return The distinct Spotify URIs of stale mappings, the longest unconfirmed first
+   */
+  List<URI> findStaleTracks(Duration maxAge, int limit);
 
-      pstmt.executeUpdate();
+  /**
+   * Stores the result of rechecking Spotify tracks. Mappings to a track which is still available
+   * are marked as validated and follow the track if Spotify relinked it to another one. Mappings to
+   * a track which is no longer available are removed, so the track is searched again on its next
+   * lookup.
+   *
+   * @param currentUris For each rechecked Spotify URI the URI to use from now on, or empty if the
+   *     track is no longer available
+   */
+  void storeRevalidatedTracks(Map<URI, Optional<URI>> currentUris);
 
-    } catch (SQLException e) {
-      throw new SqliteException(
-          "Failed to store track in cache for artist '"
-              + track.artist()
-              + "' and title '"
-              + track.title()
-              + "'",
-          e);
-    }
-  }
+  /**
+   * Removes the least recently used mappings until the cache holds at most {@code maxSize}
+   * mappings.
+   *
+   * @return Number of removed mappings
+   */
+  int evictLeastRecentlyUsed(int maxSize);
 
-  /** Clears all entries from the cache. */
-  public void clearCache() {
-    String sql = "DELETE FROM tracks";
+  /**
+   * Exports all mappings, e.g. to seed the cache of another instance, see {@link
+   * TrackCacheSnapshot}. Unresolvable tracks are not exported.
+   *
+   * @return All mappings in no particular order
+   */
+  List<TrackCacheEntry> exportEntries();
 
-    try (Connection conn = getConnection();
-        Statement stmt = conn.createStatement()) {
+  /**
+   * Imports mappings with their timestamps and hit counts, replacing the mappings of the same
+   * spellings. The entries are written right away, not buffered.
+   *
+   * @param entries The mappings to import
+   */
+  void importEntries(Collection<TrackCacheEntry> entries);
 
-      stmt.executeUpdate(sql);
+  /** Writes all buffered entries. */
+  void flush();
 
-    } catch (SQLException e) {
-      throw new SqliteException("Failed to clear track cache", e);
-    }
-  }
+  /** Clears all entries from the cache. */
+  void clearCache();
 
   /**
    * Gets the current size of the cache.
    *
    * @return Number of cached tracks
    */
-  public long getCacheSize() {
-    String sql = "SELECT COUNT(*) FROM tracks";
+  long getCacheSize();
 
-    try (Connection conn = getConnection();
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(sql)) {
-
-      if (rs.next()) {
-        return rs.getLong(1);
-      }
-    } catch (SQLException e) {
-      throw new SqliteException("Failed to get cache size", e);
-    }
-
-    throw new SqliteException("Failed to get cache size");
-  }
-
-  private Connection getConnection() throws SQLException {
-    return DriverManager.getConnection("jdbc:sqlite:" + databasePath);
-  }
+  /**
+   * Flushes buffered entries and releases the underlying resources. The cache must not be used
+   * afterwards.
+   */
+  @Override
+  void close();
 }
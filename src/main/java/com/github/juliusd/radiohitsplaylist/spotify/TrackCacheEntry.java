@@ -0,0 +1,25 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.time.Instant;
+
+/**
+ * A complete cached mapping, as exported from and imported into a {@link TrackCache}.
+ *
+ * @param track The radio track
+ * @param spotifyUri The Spotify URI found for the track
+ * @param queryVariant The query which found the Spotify track, may be null
+ * @param confidence The confidence of the match, see {@link TrackMatch#confidence()}
+ * @param validatedAt When the mapping was last confirmed by Spotify
+ * @param lastHitAt When the mapping was last found by a lookup
+ * @param hitCount How often the mapping was found by a lookup
+ */
+public record TrackCacheEntry(
+    Track track,
+    URI spotifyUri,
+    QueryVariant queryVariant,
+    double confidence,
+    Instant validatedAt,
+    Instant lastHitAt,
+    int hitCount) {}
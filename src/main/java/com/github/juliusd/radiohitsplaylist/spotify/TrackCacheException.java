@@ -0,0 +1,13 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+/** Exception thrown when a {@link TrackCache} fails to read or write its storage. */
+public class TrackCacheException extends RuntimeException {
+
+  public TrackCacheException(String message) {
+    super(message);
+  }
+
+  public TrackCacheException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,109 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.neovisionaries.i18n.CountryCode;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+/**
+ * Rechecks cached mappings which have not been confirmed for a while, because Spotify relinks,
+ * region-blocks and removes tracks. The tracks are loaded by id in batches instead of being
+ * searched again, which needs one request per {@link #TRACKS_PER_REQUEST} tracks.
+ *
+ * <p>Relinked tracks are replaced by the track Spotify links to; tracks which are gone or not
+ * playable in the market are removed from the cache, so they are searched again on their next
+ * lookup. Mappings already loaded into a memory tier are not affected until the next run.
+ */
+public class TrackCacheRevalidator {
+
+  /** Maximum number of ids accepted by Spotify's several tracks endpoint. */
+  static final int TRACKS_PER_REQUEST = 50;
+
+  private final SpotifyApi spotifyApi;
+  private final SpotifyRequestExecutor requestExecutor;
+  private final TrackCache trackCache;
+  private final Duration revalidateAfter;
+  private final int maxRevalidations;
+
+  /**
+   * @param revalidateAfter Age of the last confirmation after which a mapping is rechecked
+   * @param maxRevalidations Maximum number of Spotify tracks rechecked by one {@link
+   *     #revalidate()}, which spreads the work over several runs after a long pause
+   */
+  public TrackCacheRevalidator(
+      SpotifyApi spotifyApi,
+      SpotifyRequestExecutor requestExecutor,
+      TrackCache trackCache,
+      Duration revalidateAfter,
+      int maxRevalidations) {
+    this.spotifyApi = spotifyApi;
+    this.requestExecutor = requestExecutor;
+    this.trackCache = trackCache;
+    this.revalidateAfter = revalidateAfter;
+    this.maxRevalidations = maxRevalidations;
+  }
+
+  /**
+   * Rechecks the stale mappings and stores the result after each request.
+   *
+   * @return Number of rechecked Spotify tracks
+   */
+  public int revalidate() {
+    List<URI> staleUris = trackCache.findStaleTracks(revalidateAfter, maxRevalidations);
+    int relinked = 0;
+    int removed = 0;
+    for (int i = 0; i < staleUris.size(); i += TRACKS_PER_REQUEST) {
+      List<URI> batch = staleUris.subList(i, Math.min(i + TRACKS_PER_REQUEST, staleUris.size()));
+      Map<URI, Optional<URI>> currentUris = loadCurrentUris(batch);
+      trackCache.storeRevalidatedTracks(currentUris);
+      for (Map.Entry<URI, Optional<URI>> entry : currentUris.entrySet()) {
+        if (entry.getValue().isEmpty()) {
+          removed++;
+        } else if (!entry.getValue().get().equals(entry.getKey())) {
+          relinked++;
+        }
+      }
+    }
+    if (!staleUris.isEmpty()) {
+      log(
+          "Revalidated "
+              + staleUris.size()
+              + " cached tracks, "
+              + relinked
+              + " relinked, "
+              + removed
+              + " removed");
+    }
+    return staleUris.size();
+  }
+
+  private Map<URI, Optional<URI>> loadCurrentUris(List<URI> uris) {
+    String[] ids = uris.stream().map(TrackCacheRevalidator::trackId).toArray(String[]::new);
+    Track[] tracks =
+        requestExecutor.execute(
+            "load " + ids.length + " tracks",
+            () -> spotifyApi.getSeveralTracks(ids).market(CountryCode.DE).build().execute());
+
+    // The response has one entry per requested id in the same order, null for unknown ids
+    Map<URI, Optional<URI>> currentUris = new HashMap<>();
+    for (int i = 0; i < uris.size(); i++) {
+      Track track = i < tracks.length ? tracks[i] : null;
+      boolean available = track != null && !Boolean.FALSE.equals(track.getIsPlayable());
+      currentUris.put(
+          uris.get(i), available ? Optional.of(URI.create(track.getUri())) : Optional.empty());
+    }
+    return currentUris;
+  }
+
+  private static String trackId(URI spotifyUri) {
+    String uri = spotifyUri.toString();
+    return uri.substring(uri.lastIndexOf(':') + 1);
+  }
+}
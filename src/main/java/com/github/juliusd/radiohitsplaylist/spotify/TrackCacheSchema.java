@@ -0,0 +1,257 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.List;
+
+/**
+ * Versioned schema of the {@link SqliteTrackCache} database. The version of a database file is kept
+ * in {@code PRAGMA user_version}; opening a cache applies all migrations above that version in a
+ * single transaction, so a file is either upgraded completely or left untouched.
+ *
+ * <p>Files written before the versioning have version 0 but may already contain parts of the
+ * schema, which is why the first migrations tolerate existing tables and columns. New migrations
+ * are appended to {@link #MIGRATIONS} and must never change once released.
+ */
+final class TrackCacheSchema {
+
+  @FunctionalInterface
+  private interface Migration {
+    void apply(Statement stmt) throws SQLException;
+  }
+
+  /** The migration at index {@code i} upgrades a database from version {@code i} to {@code i+1}. */
+  private static final List<Migration> MIGRATIONS =
+      List.of(
+          TrackCacheSchema::createTables,
+          TrackCacheSchema::addMatchConfidence,
+          TrackCacheSchema::addLookupKey,
+          TrackCacheSchema::replaceIndexesWithCoveringIndex,
+          TrackCacheSchema::addValidationAndHitTimes,
+          TrackCacheSchema::addHitCount);
+
+  static final int CURRENT_VERSION = MIGRATIONS.size();
+
+  private TrackCacheSchema() {}
+
+  /**
+   * Brings the database to {@link #CURRENT_VERSION}.
+   *
+   * @throws SqliteException if the database was written by a newer version of the cache
+   */
+  static void migrate(Connection connection) throws SQLException {
+    int version = readVersion(connection);
+    if (version > CURRENT_VERSION) {
+      throw new SqliteException(
+          "Track cache database has schema version "
+              + version
+              + ", but only version "
+              + CURRENT_VERSION
+              + " is supported");
+    }
+    if (version == CURRENT_VERSION) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    connection.setAutoCommit(false);
+    try (Statement stmt = connection.createStatement()) {
+      for (int i = version; i < CURRENT_VERSION; i++) {
+        MIGRATIONS.get(i).apply(stmt);
+      }
+      stmt.execute("PRAGMA user_version = " + CURRENT_VERSION);
+      connection.commit();
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+    log(
+        "Migrated track cache from schema version "
+            + version
+            + " to "
+            + CURRENT_VERSION
+            + " in "
+            + (System.nanoTime() - start) / 1_000_000
+            + " ms");
+  }
+
+  static int readVersion(Connection connection) throws SQLException {
+    try (Statement stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
+
+  private static void createTables(Statement stmt) throws SQLException {
+    stmt.execute(
+        """
+        CREATE TABLE IF NOT EXISTS tracks (
+          id INTEGER PRIMARY KEY AUTOINCREMENT,
+          artist TEXT NOT NULL,
+          title TEXT NOT NULL,
+          spotify_uri TEXT NOT NULL,
+          created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+          UNIQUE(artist, title)
+        )
+        """);
+    stmt.execute("CREATE INDEX IF NOT EXISTS idx_artist_title ON tracks(artist, title)");
+
+    // Tracks which could not be found on Spotify
+    stmt.execute(
+        """
+        CREATE TABLE IF NOT EXISTS unresolvable_tracks (
+          artist TEXT NOT NULL,
+          title TEXT NOT NULL,
+          checked_at INTEGER NOT NULL,
+          PRIMARY KEY(artist, title)
+        )
+        """);
+  }
+
+  /** Mappings of older cache files were only stored for exact matches. */
+  private static void addMatchConfidence(Statement stmt) throws SQLException {
+    addColumnIfMissing(stmt, "tracks", "query_variant", "TEXT");
+    addColumnIfMissing(stmt, "tracks", "confidence", "REAL NOT NULL DEFAULT 1.0");
+  }
+
+  /**
+   * Adds the {@link TrackNormalizer#lookupKey(Track) lookup key}. The normalization is not
+   * available in SQL, so the keys of existing rows are computed here by the {@link
+   * LookupKeyVersion3 normalization of that time}.
+   */
+  private static void addLookupKey(Statement stmt) throws SQLException {
+    addColumnIfMissing(stmt, "tracks", "lookup_key", "TEXT");
+    Connection connection = stmt.getConnection();
+    try (Statement select = connection.createStatement();
+        PreparedStatement update =
+            connection.prepareStatement("UPDATE tracks SET lookup_key = ? WHERE id = ?");
+        ResultSet rs =
+            select.executeQuery("SELECT id, artist, title FROM tracks WHERE lookup_key IS NULL")) {
+      while (rs.next()) {
+        update.setString(
+            1,
+            LookupKeyVersion3.lookupKey(new Track(rs.getString("title"), rs.getString("artist"))));
+        update.setLong(2, rs.getLong("id"));
+        update.addBatch();
+      }
+      update.executeBatch();
+    }
+    stmt.execute("CREATE INDEX IF NOT EXISTS idx_lookup_key ON tracks(lookup_key)");
+  }
+
+  /**
+   * Drops {@code idx_artist_title}, which duplicated the implicit index of {@code UNIQUE(artist,
+   * title)}, and replaces the plain lookup key index by one containing all columns read by the
+   * lookups, so they are answered from the index without reading the table.
+   */
+  private static void replaceIndexesWithCoveringIndex(Statement stmt) throws SQLException {
+    stmt.execute("DROP INDEX IF EXISTS idx_artist_title");
+    stmt.execute("DROP INDEX IF EXISTS idx_lookup_key");
+    stmt.execute(
+        "CREATE INDEX IF NOT EXISTS idx_lookup_key_covering ON tracks(lookup_key, confidence,"
+            + " artist, title, spotify_uri)");
+  }
+
+  /**
+   * Adds the times in epoch milliseconds when a mapping was last confirmed by Spotify and last
+   * found by a lookup. Existing mappings count as validated and used when they were created.
+   *
+   * <p>The revalidation updates and deletes mappings by URI and groups the stale mappings by URI,
+   * which the index on both columns answers without reading the table.
+   */
+  private static void addValidationAndHitTimes(Statement stmt) throws SQLException {
+    addColumnIfMissing(stmt, "tracks", "validated_at", "INTEGER");
+    addColumnIfMissing(stmt, "tracks", "last_hit_at", "INTEGER");
+    stmt.execute(
+        "UPDATE tracks SET validated_at = COALESCE(CAST(strftime('%s', created_at) AS INTEGER)"
+            + " * 1000, 0) WHERE validated_at IS NULL");
+    stmt.execute("UPDATE tracks SET last_hit_at = validated_at WHERE last_hit_at IS NULL");
+    stmt.execute(
+        "CREATE INDEX IF NOT EXISTS idx_spotify_uri_validated_at ON tracks(spotify_uri,"
+            + " validated_at)");
+  }
+
+  private static void addHitCount(Statement stmt) throws SQLException {
+    addColumnIfMissing(stmt, "tracks", "hit_count", "INTEGER NOT NULL DEFAULT 0");
+  }
+
+  private static void addColumnIfMissing(
+      Statement stmt, String table, String column, String definition) throws SQLException {
+    try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+      while (rs.next()) {
+        if (rs.getString("name").equals(column)) {
+          return;
+        }
+      }
+    }
+    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+  }
+
+  /**
+   * Frozen copy of {@link TrackNormalizer#lookupKey(Track)} as of schema version 3, so that the
+   * migration computes the same keys however the normalizer changes later. A change of the
+   * normalizer needs a new migration which re-computes the keys of all rows.
+   */
+  private static final class LookupKeyVersion3 {
+
+    private static final List<String> ARTIST_SEPARATORS =
+        List.of("x", "feat", "feat.", "featuring", "featuring.", "ft", "ft.");
+
+    private static String lookupKey(Track track) {
+      return normalizeArtist(track.artist()) + '\u001f' + fold(track.title(), false);
+    }
+
+    private static String normalizeArtist(String artist) {
+      String folded = fold(artist, true);
+      int length = folded.length();
+      StringBuilder result = new StringBuilder(length);
+      int wordStart = 0;
+      while (wordStart < length) {
+        int wordEnd = folded.indexOf(' ', wordStart);
+        if (wordEnd < 0) {
+          wordEnd = length;
+        }
+        boolean innerWord = wordStart > 0 && wordEnd < length;
+        if (!innerWord || !ARTIST_SEPARATORS.contains(folded.substring(wordStart, wordEnd))) {
+          if (!result.isEmpty()) {
+            result.append(' ');
+          }
+          result.append(folded, wordStart, wordEnd);
+        }
+        wordStart = wordEnd + 1;
+      }
+      return result.toString();
+    }
+
+    private static String fold(String value, boolean artistSeparatorsToSpace) {
+      String source = Normalizer.normalize(value, Normalizer.Form.NFD);
+      StringBuilder folded = new StringBuilder(source.length());
+      boolean pendingSpace = false;
+      for (int i = 0; i < source.length(); i++) {
+        char c = source.charAt(i);
+        if (artistSeparatorsToSpace && (c == ',' || c == '&')) {
+          c = ' ';
+        }
+        if (Character.isWhitespace(c)) {
+          pendingSpace = !folded.isEmpty();
+        } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+          if (pendingSpace) {
+            folded.append(' ');
+            pendingSpace = false;
+          }
+          folded.append(Character.toLowerCase(c));
+        }
+      }
+      return folded.toString();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary snapshot of the mappings of a {@link TrackCache}, used to seed the cache of a new
+ * instance with the warm cache of an existing one, see {@link TrackCacheSnapshotTool}.
+ *
+ * <p>A snapshot starts with the magic bytes {@code RHTS} and a format version, followed by a gzip
+ * stream with the number of entries and one record per entry. Records are sorted by artist and
+ * title, and each one stores its key only as the number of leading bytes shared with the key of the
+ * previous record plus the differing suffix, so the many tracks of one artist share most of their
+ * key. Numbers are written as variable length integers and track URIs without their common {@code
+ * spotify:track:} prefix.
+ */
+public class TrackCacheSnapshot {
+
+  private static final byte[] MAGIC = {'R', 'H', 'T', 'S'};
+  private static final int VERSION = 1;
+  private static final String TRACK_URI_PREFIX = "spotify:track:";
+
+  private static final int SPOTIFY_TRACK_URI = 0;
+  private static final int OTHER_URI = 1;
+
+  private TrackCacheSnapshot() {}
+
+  /**
+   * Writes the entries as a snapshot. The stream is finished but not closed.
+   *
+   * @param entries The entries in any order
+   * @param output Stream to write the snapshot to
+   */
+  public static void write(List<TrackCacheEntry> entries, OutputStream output) throws IOException {
+    List<KeyedEntry> sortedEntries =
+        entries.stream()
+            .map(entry -> new KeyedEntry(key(entry.track()), entry))
+            .sorted(Comparator.comparing(KeyedEntry::key, Arrays::compareUnsigned))
+            .toList();
+
+    output.write(MAGIC);
+    output.write(VERSION);
+    var gzip = new GZIPOutputStream(output, 64 * 1024);
+    var out = new DataOutputStream(gzip);
+    writeVarLong(out, sortedEntries.size());
+    byte[] previousKey = new byte[0];
+    for (KeyedEntry keyedEntry : sortedEntries) {
+      byte[] key = keyedEntry.key();
+      int sharedPrefixLength = Math.max(0, Arrays.mismatch(previousKey, key));
+      writeVarLong(out, sharedPrefixLength);
+      writeVarLong(out, key.length - sharedPrefixLength);
+      out.write(key, sharedPrefixLength, key.length - sharedPrefixLength);
+      previousKey = key;
+
+      TrackCacheEntry entry = keyedEntry.entry();
+      String uri = entry.spotifyUri().toString();
+      if (uri.startsWith(TRACK_URI_PREFIX)) {
+        out.writeByte(SPOTIFY_TRACK_URI);
+        writeString(out, uri.substring(TRACK_URI_PREFIX.length()));
+      } else {
+        out.writeByte(OTHER_URI);
+        writeString(out, uri);
+      }
+      writeString(out, entry.queryVariant() != null ? entry.queryVariant().name() : "");
+      out.writeDouble(entry.confidence());
+      writeVarLong(out, entry.validatedAt().toEpochMilli());
+      writeVarLong(out, entry.lastHitAt().toEpochMilli());
+      writeVarLong(out, entry.hitCount());
+    }
+    out.flush();
+    gzip.finish();
+  }
+
+  /**
+   * Reads a snapshot written by {@link #write(List, OutputStream)}.
+   *
+   * @param input Stream to read the snapshot from
+   * @return The entries, sorted by artist and title
+   * @throws IOException if the stream cannot be read or is not a snapshot of a supported version
+   */
+  public static List<TrackCacheEntry> read(InputStream input) throws IOException {
+    byte[] header = input.readNBytes(MAGIC.length + 1);
+    if (header.length < MAGIC.length + 1
+        || !Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)) {
+      throw new IOException("Not a track cache snapshot");
+    }
+    if (header[MAGIC.length] != VERSION) {
+      throw new IOException("Unsupported track cache snapshot version " + header[MAGIC.length]);
+    }
+    var in = new DataInputStream(new GZIPInputStream(input, 64 * 1024));
+    long count = readVarLong(in);
+    List<TrackCacheEntry> entries = new ArrayList<>((int) Math.min(count, 1_000_000));
+    byte[] previousKey = new byte[0];
+    for (long i = 0; i < count; i++) {
+      int sharedPrefixLength = (int) readVarLong(in);
+      int suffixLength = (int) readVarLong(in);
+      if (sharedPrefixLength > previousKey.length) {
+        throw new IOException("Corrupt track cache snapshot at entry " + i);
+      }
+      byte[] key = Arrays.copyOf(previousKey, sharedPrefixLength + suffixLength);
+      in.readFully(key, sharedPrefixLength, suffixLength);
+      previousKey = key;
+
+      String uri =
+          switch (in.readByte()) {
+            case SPOTIFY_TRACK_URI -> TRACK_URI_PREFIX + readString(in);
+            case OTHER_URI -> readString(in);
+            default -> throw new IOException("Corrupt track cache snapshot at entry " + i);
+          };
+      String queryVariant = readString(in);
+      entries.add(
+          new TrackCacheEntry(
+              track(key),
+              URI.create(uri),
+              queryVariant.isEmpty() ? null : QueryVariant.valueOf(queryVariant),
+              in.readDouble(),
+              Instant.ofEpochMilli(readVarLong(in)),
+              Instant.ofEpochMilli(readVarLong(in)),
+              (int) readVarLong(in)));
+    }
+    return entries;
+  }
+
+  private static byte[] key(Track track) {
+    return (track.artist() + TrackNormalizer.LOOKUP_KEY_SEPARATOR + track.title())
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Track track(byte[] key) {
+    String value = new String(key, StandardCharsets.UTF_8);
+    int separator = value.indexOf(TrackNormalizer.LOOKUP_KEY_SEPARATOR);
+    return new Track(value.substring(separator + 1), value.substring(0, separator));
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[(int) readVarLong(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Writes a non-negative number with 7 bits per byte, the lowest bits first. */
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Corrupt track cache snapshot: variable length integer too long");
+  }
+
+  private record KeyedEntry(byte[] key, TrackCacheEntry entry) {}
+}
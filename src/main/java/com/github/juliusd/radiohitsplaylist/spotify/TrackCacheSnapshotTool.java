@@ -0,0 +1,74 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.juliusd.radiohitsplaylist.Logger.log;
+
+import com.github.juliusd.radiohitsplaylist.config.ConfigLoader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Exports the track cache of the configured backend to a {@link TrackCacheSnapshot}, or imports a
+ * snapshot into it, so that a new instance starts with the warm cache of an existing one.
+ *
+ * <pre>
+ * java -DconfigFilePath=./config.yaml -cp radio-hits-playlist.jar \
+ *   com.github.juliusd.radiohitsplaylist.spotify.TrackCacheSnapshotTool export|import snapshot.bin
+ * </pre>
+ */
+public class TrackCacheSnapshotTool {
+
+  public static void main(String[] args) {
+    if (args.length != 2 || !List.of("export", "import").contains(args[0])) {
+      System.err.println("Usage: TrackCacheSnapshotTool export|import <snapshot file>");
+      System.exit(1);
+    }
+    var configuration = new ConfigLoader().loadConfig(System.getProperty("configFilePath"));
+    Path snapshotPath = Path.of(args[1]);
+    try (var trackCache = TrackCache.open(configuration.trackCache().backend())) {
+      if (args[0].equals("export")) {
+        exportSnapshot(trackCache, snapshotPath);
+      } else {
+        importSnapshot(trackCache, snapshotPath);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to " + args[0] + " snapshot " + snapshotPath, e);
+    }
+  }
+
+  static void exportSnapshot(TrackCache trackCache, Path snapshotPath) throws IOException {
+    List<TrackCacheEntry> entries = trackCache.exportEntries();
+    try (var output = new BufferedOutputStream(Files.newOutputStream(snapshotPath))) {
+      TrackCacheSnapshot.write(entries, output);
+    }
+    log(
+        "Exported "
+            + entries.size()
+            + " cached tracks to "
+            + snapshotPath
+            + " ("
+            + Files.size(snapshotPath)
+            + " bytes)");
+  }
+
+  static void importSnapshot(TrackCache trackCache, Path snapshotPath) throws IOException {
+    List<TrackCacheEntry> entries;
+    try (var input = new BufferedInputStream(Files.newInputStream(snapshotPath))) {
+      entries = TrackCacheSnapshot.read(input);
+    }
+    long start = System.nanoTime();
+    trackCache.importEntries(entries);
+    log(
+        "Imported "
+            + entries.size()
+            + " cached tracks from "
+            + snapshotPath
+            + " in "
+            + (System.nanoTime() - start) / 1_000_000
+            + " ms");
+  }
+}
@@ -1,36 +1,97 @@
 package com.github.juliusd.radiohitsplaylist.spotify;
 
-import static com.github.juliusd.radiohitsplaylist.Logger.log;
 import static java.util.function.Predicate.not;
 
+import com.github.juliusd.radiohitsplaylist.Futures;
 import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.config.TrackSearchConfiguration;
+import com.github.juliusd.radiohitsplaylist.config.TrackSearchMode;
 import com.neovisionaries.i18n.CountryCode;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import org.apache.hc.core5.http.ParseException;
+import java.util.stream.Stream;
 import se.michaelthelin.spotify.SpotifyApi;
-import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
-import se.michaelthelin.spotify.exceptions.detailed.BadGatewayException;
 import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
 
 public class TrackFinder {
 
+  private static final int SEQUENTIAL_SEARCH_LIMIT = 5;
+
   private final SpotifyApi spotifyApi;
-  private static final int MAX_RETRIES = 3;
-  private static final long INITIAL_RETRY_DELAY_MS = 1000;
+  private final SpotifyRequestExecutor requestExecutor;
+  private final TrackSearchConfiguration configuration;
+  private final ExecutorService queryExecutor;
+
+  public TrackFinder(SpotifyApi spotifyApi, SpotifyRequestExecutor requestExecutor) {
+    this(spotifyApi, requestExecutor, TrackSearchConfiguration.defaults(), null);
+  }
 
-  public TrackFinder(SpotifyApi spotifyApi) {
+  /**
+   * @param queryExecutor Runs the queries of one track concurrently in {@link
+   *     TrackSearchMode#PARALLEL} mode, may be null in the other modes. It must not be the executor
+   *     calling {@link #findMatch(Track)}, as a bounded pool could then wait for itself.
+   */
+  public TrackFinder(
+      SpotifyApi spotifyApi,
+      SpotifyRequestExecutor requestExecutor,
+      TrackSearchConfiguration configuration,
+      ExecutorService queryExecutor) {
+    if (configuration.mode() == TrackSearchMode.PARALLEL && queryExecutor == null) {
+      throw new IllegalArgumentException("The parallel track search mode needs a query executor");
+    }
     this.spotifyApi = spotifyApi;
+    this.requestExecutor = requestExecutor;
+    this.configuration = configuration;
+    this.queryExecutor = queryExecutor;
   }
 
   public Optional<SpotifyTrack> findSpotifyTrack(Track track) {
-    List<String> querries = new ArrayList<>();
+    return findMatch(track).map(TrackMatch::spotifyTrack);
+  }
+
+  /**
+   * Searches the track with up to four query variants, stopping at the first variant which finds
+   * anything. In {@link TrackSearchMode#BROAD} mode the {@link QueryVariant#PLAIN plain} query is
+   * sent first with a larger limit and the candidates are ranked locally; the narrower variants are
+   * only tried if no candidate scores at least the configured minimum. In {@link
+   * TrackSearchMode#PARALLEL} mode all variants are sent at once, see {@link
+   * #findFirstMatchInParallel(Track, Map)}.
+   *
+   * @return The found track together with the query variant and the match confidence
+   */
+  public Optional<TrackMatch> findMatch(Track track) {
+    Map<QueryVariant, String> querries = buildQueries(track);
+    if (configuration.mode() == TrackSearchMode.BROAD) {
+      Optional<TrackMatch> broadMatch = findBestCandidate(track, querries.get(QueryVariant.PLAIN));
+      if (broadMatch.isPresent()
+          && broadMatch.get().confidence() >= configuration.minBroadMatchScore()) {
+        return broadMatch;
+      }
+      querries.remove(QueryVariant.PLAIN);
+      Optional<TrackMatch> narrowMatch = findFirstMatch(track, querries);
+      // on a tie the narrow match wins, as its query was more specific
+      return Stream.of(narrowMatch, broadMatch)
+          .flatMap(Optional::stream)
+          .max(Comparator.comparingDouble(TrackMatch::confidence));
+    }
+    if (configuration.mode() == TrackSearchMode.PARALLEL) {
+      return findFirstMatchInParallel(track, querries);
+    }
+    return findFirstMatch(track, querries);
+  }
+
+  private Map<QueryVariant, String> buildQueries(Track track) {
+    Map<QueryVariant, String> querries = new EnumMap<>(QueryVariant.class);
     String quoteQuery = "artist:\"" + track.artist().trim() + "\" track:\"" + track.title() + "\"";
-    querries.add(quoteQuery);
+    querries.put(QueryVariant.QUOTED, quoteQuery);
 
     if (track.artist().contains("&")) {
       var firstArtist =
@@ -41,21 +102,98 @@ public class TrackFinder {
               .orElse(track.artist());
       String firstArtistQuoteQuery =
           "artist:\"" + firstArtist + "\" track:\"" + track.title() + "\"";
-      querries.add(firstArtistQuoteQuery);
+      querries.put(QueryVariant.FIRST_ARTIST_QUOTED, firstArtistQuoteQuery);
     }
     String unquotedQuery = "artist:" + track.artist() + " track:" + track.title();
-    querries.add(unquotedQuery);
+    querries.put(QueryVariant.UNQUOTED, unquotedQuery);
     String plainQuery = buildPlainQuery(track);
-    querries.add(plainQuery);
-    for (String query : querries) {
-      var searchResult = execSearch(query, track);
-      if (searchResult.isPresent()) {
-        return searchResult.map(SpotifyTrackMapper::toSpotifyTrack);
+    querries.put(QueryVariant.PLAIN, plainQuery);
+    return querries;
+  }
+
+  private Optional<TrackMatch> findFirstMatch(Track track, Map<QueryVariant, String> querries) {
+    for (var query : querries.entrySet()) {
+      var match = searchVariant(track, query.getKey(), query.getValue());
+      if (match.isPresent()) {
+        return match;
       }
     }
     return Optional.empty();
   }
 
+  /**
+   * Sends all query variants at once. The exact match of the most specific variant is returned as
+   * soon as all more specific variants have completed without one, and the remaining queries are
+   * cancelled; queued queries never start, the results of running ones are dropped. Without any
+   * exact match the result is the same as in sequential mode: the match of the most specific
+   * variant which found anything.
+   */
+  private Optional<TrackMatch> findFirstMatchInParallel(
+      Track track, Map<QueryVariant, String> querries) {
+    CompletionService<Optional<TrackMatch>> completionService =
+        new ExecutorCompletionService<>(queryExecutor);
+    Map<QueryVariant, Future<Optional<TrackMatch>>> searches = new EnumMap<>(QueryVariant.class);
+    try {
+      querries.forEach(
+          (variant, query) ->
+              searches.put(
+                  variant, completionService.submit(() -> searchVariant(track, variant, query))));
+      for (int completed = 0; completed < searches.size(); completed++) {
+        completionService.take();
+        for (Future<Optional<TrackMatch>> search : searches.values()) {
+          if (!search.isDone()) {
+            break;
+          }
+          Optional<TrackMatch> match = Futures.await(search, SpotifyException::new);
+          if (match.isPresent() && match.get().isExactMatch()) {
+            return match;
+          }
+        }
+      }
+      for (Future<Optional<TrackMatch>> search : searches.values()) {
+        Optional<TrackMatch> match = Futures.await(search, SpotifyException::new);
+        if (match.isPresent()) {
+          return match;
+        }
+      }
+      return Optional.empty();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SpotifyException(e);
+    } finally {
+      searches.values().forEach(search -> search.cancel(true));
+    }
+  }
+
+  private Optional<TrackMatch> searchVariant(Track track, QueryVariant variant, String query) {
+    return execSearch(query, track)
+        .map(SpotifyTrackMapper::toSpotifyTrack)
+        .map(
+            spotifyTrack ->
+                new TrackMatch(spotifyTrack, variant, MatchScorer.score(track, spotifyTrack)));
+  }
+
+  /**
+   * Ranks all candidates by their match score. Popularity breaks ties, which prefers the original
+   * release over compilations and re-releases with the same title and artists.
+   */
+  private Optional<TrackMatch> findBestCandidate(Track track, String query) {
+    var items = search(query, configuration.broadSearchLimit());
+    return Arrays.stream(items)
+        .map(
+            item -> {
+              SpotifyTrack spotifyTrack = SpotifyTrackMapper.toSpotifyTrack(item);
+              return new Candidate(
+                  new TrackMatch(
+                      spotifyTrack, QueryVariant.PLAIN, MatchScorer.score(track, spotifyTrack)),
+                  item.getPopularity() != null ? item.getPopularity() : 0);
+            })
+        .max(
+            Comparator.comparingDouble((Candidate candidate) -> candidate.match().confidence())
+                .thenComparingInt(Candidate::popularity))
+        .map(Candidate::match);
+  }
+
   private String buildPlainQuery(Track track) {
     if (!track.title().trim().contains(" ") && track.artist().trim().contains(" ")) {
       return track.title() + " - " + track.artist();
@@ -66,64 +204,37 @@ public class TrackFinder {
 
   private Optional<se.michaelthelin.spotify.model_objects.specification.Track> execSearch(
       String q, Track originalTrack) {
-    int attempt = 0;
-    Exception lastException = null;
-    while (attempt <= MAX_RETRIES) {
-      try {
-        var searchTracksRequest =
-            spotifyApi.searchTracks(q).market(CountryCode.DE).limit(5).build();
-        var trackPaging = searchTracksRequest.execute();
-
-        for (var spotifyTrack : trackPaging.getItems()) {
-          if (isExactMatch(spotifyTrack, originalTrack)) {
-            return Optional.of(spotifyTrack);
-          }
-        }
+    var items = search(q, SEQUENTIAL_SEARCH_LIMIT);
 
-        return Arrays.stream(trackPaging.getItems()).findFirst();
-      } catch (BadGatewayException e) {
-        if (attempt < MAX_RETRIES) {
-          attempt++;
-          lastException = e;
-          long delayMs = INITIAL_RETRY_DELAY_MS * (1L << (attempt - 1)); // Exponential backoff
-          log(
-              "Bad Gateway error on attempt "
-                  + attempt
-                  + " for query: "
-                  + q
-                  + ". Retrying in "
-                  + delayMs
-                  + "ms.");
-          try {
-            Thread.sleep(delayMs);
-          } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            throw new SpotifyException("Search interrupted during retry for " + q, ie);
-          }
-        } else {
-          throw new SpotifyException("Failed to search for " + q, e);
-        }
-      } catch (IOException | SpotifyWebApiException | ParseException e) {
-        throw new SpotifyException("Failed to search for " + q, e);
+    for (var spotifyTrack : items) {
+      if (isExactMatch(spotifyTrack, originalTrack)) {
+        return Optional.of(spotifyTrack);
       }
     }
-    throw new SpotifyException(
-        attempt + " retries searching for " + q + " failed. Last exception: " + lastException,
-        lastException);
+
+    return Arrays.stream(items).findFirst();
+  }
+
+  private se.michaelthelin.spotify.model_objects.specification.Track[] search(String q, int limit) {
+    return requestExecutor
+        .execute(
+            "search for " + q,
+            () -> spotifyApi.searchTracks(q).market(CountryCode.DE).limit(limit).build().execute())
+        .getItems();
   }
 
   private boolean isExactMatch(
       se.michaelthelin.spotify.model_objects.specification.Track spotifyTrack, Track wantedTrack) {
-    String foundTitle = normalizeTitle(spotifyTrack.getName());
-    String wantedTitle = normalizeTitle(wantedTrack.title());
+    String foundTitle = TrackNormalizer.normalizeTitle(spotifyTrack.getName());
+    String wantedTitle = TrackNormalizer.normalizeTitle(wantedTrack.title());
 
     if (!foundTitle.equals(wantedTitle)) {
       return false;
     }
 
-    String wantedArtists = normalizeArtist(wantedTrack.artist());
+    String wantedArtists = TrackNormalizer.normalizeArtist(wantedTrack.artist());
     String foundArtists =
-        normalizeArtist(
+        TrackNormalizer.normalizeArtist(
             Arrays.stream(spotifyTrack.getArtists())
                 .map(ArtistSimplified::getName)
                 .collect(Collectors.joining(" ")));
@@ -131,23 +242,5 @@ public class TrackFinder {
     return foundArtists.equals(wantedArtists);
   }
 
-  private String normalizeTitle(String title) {
-    return title.toLowerCase().trim();
-  }
-
-  private String normalizeArtist(String artist) {
-    return artist
-        .toLowerCase()
-        .replaceAll(",", " ")
-        .replaceAll("&", " ")
-        .replaceAll(" x ", " ")
-        .replaceAll(" feat ", " ")
-        .replaceAll(" featuring ", " ")
-        .replaceAll(" ft ", " ")
-        .replaceAll(" ft. ", " ")
-        .replaceAll(" feat. ", " ")
-        .replaceAll(" featuring. ", " ")
-        .replaceAll("\\s+", " ")
-        .trim();
-  }
+  private record Candidate(TrackMatch match, int popularity) {}
 }
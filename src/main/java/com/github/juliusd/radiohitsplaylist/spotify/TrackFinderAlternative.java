@@ -80,42 +80,20 @@ public class TrackFinderAlternative {
 
   private boolean isExactMatch(
       se.michaelthelin.spotify.model_objects.specification.Track spotifyTrack, Track wantedTrack) {
-    String foundTitle = normalizeTitle(spotifyTrack.getName());
-    String wantedTitle = normalizeTitle(wantedTrack.title());
+    String foundTitle = TrackNormalizer.normalizeTitle(spotifyTrack.getName());
+    String wantedTitle = TrackNormalizer.normalizeTitle(wantedTrack.title());
 
     if (!foundTitle.equals(wantedTitle)) {
       return false;
     }
 
-    String wantedArtists = normalizeArtist(wantedTrack.artist());
+    String wantedArtists = TrackNormalizer.normalizeArtist(wantedTrack.artist());
     String foundArtists =
-        normalizeArtist(
+        TrackNormalizer.normalizeArtist(
             Arrays.stream(spotifyTrack.getArtists())
                 .map(ArtistSimplified::getName)
                 .collect(Collectors.joining(" ")));
 
     return foundArtists.equals(wantedArtists);
   }
-
-  private String normalizeTitle(String title) {
-    return title.toLowerCase().trim();
-  }
-
-  private String normalizeArtist(String artist) {
-    return artist
-        .toLowerCase()
-        .replaceAll(",", " ")
-        .replaceAll("&", " ")
-        .replaceAll(" x ", " ")
-        .replaceAll(" X ", " ")
-        .replaceAll(" x ", " ")
-        .replaceAll(" feat ", " ")
-        .replaceAll(" featuring ", " ")
-        .replaceAll(" ft ", " ")
-        .replaceAll(" ft. ", " ")
-        .replaceAll(" feat. ", " ")
-        .replaceAll(" featuring. ", " ")
-        .replaceAll("\\s+", " ")
-        .trim();
-  }
 }
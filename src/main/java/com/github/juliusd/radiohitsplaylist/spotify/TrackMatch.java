@@ -0,0 +1,16 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+/**
+ * A Spotify track found for a radio track.
+ *
+ * @param spotifyTrack The found track
+ * @param queryVariant The query which found the track
+ * @param confidence How well the found track matches the radio track, from 0 to 1 where 1 means
+ *     that title and artists are equal after normalization
+ */
+public record TrackMatch(SpotifyTrack spotifyTrack, QueryVariant queryVariant, double confidence) {
+
+  public boolean isExactMatch() {
+    return confidence >= MatchScorer.EXACT_MATCH;
+  }
+}
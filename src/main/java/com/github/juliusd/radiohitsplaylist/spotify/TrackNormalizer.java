@@ -0,0 +1,108 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.text.Normalizer;
+import java.util.List;
+
+/**
+ * Canonical form of artists and titles, used to compare radio tracks with Spotify tracks and as
+ * cache key.
+ *
+ * <p>Both are lower case, without diacritical marks and with single spaces only. Artists
+ * additionally lose the separators between several artists, so {@code "Tiësto & Karol G"} and
+ * {@code "Tiesto, Karol G"} become {@code "tiesto karol g"}. The input is scanned once; the Unicode
+ * decomposition only runs for strings containing non-ASCII characters.
+ */
+public final class TrackNormalizer {
+
+  /** Words joining two artists; only removed between two other words. */
+  private static final List<String> ARTIST_SEPARATORS =
+      List.of("x", "feat", "feat.", "featuring", "featuring.", "ft", "ft.");
+
+  /** Separates artist and title in a lookup key; cannot occur in a normalized string. */
+  static final char LOOKUP_KEY_SEPARATOR = '\u001f';
+
+  private TrackNormalizer() {}
+
+  public static String normalizeTitle(String title) {
+    return fold(title, false);
+  }
+
+  public static String normalizeArtist(String artist) {
+    String folded = fold(artist, true);
+    int length = folded.length();
+    StringBuilder result = new StringBuilder(length);
+    int wordStart = 0;
+    while (wordStart < length) {
+      int wordEnd = folded.indexOf(' ', wordStart);
+      if (wordEnd < 0) {
+        wordEnd = length;
+      }
+      boolean innerWord = wordStart > 0 && wordEnd < length;
+      if (!innerWord || !isArtistSeparator(folded, wordStart, wordEnd)) {
+        if (!result.isEmpty()) {
+          result.append(' ');
+        }
+        result.append(folded, wordStart, wordEnd);
+      }
+      wordStart = wordEnd + 1;
+    }
+    return result.toString();
+  }
+
+  /**
+   * Key shared by all spellings of a track, used by the {@link TrackCache} implementations.
+   *
+   * @return The normalized artist and title, separated by a character which cannot occur in either
+   */
+  public static String lookupKey(Track track) {
+    return normalizeArtist(track.artist()) + LOOKUP_KEY_SEPARATOR + normalizeTitle(track.title());
+  }
+
+  /**
+   * @return The track with normalized title and artist, equal for all spellings of the same track
+   */
+  public static Track normalize(Track track) {
+    return new Track(normalizeTitle(track.title()), normalizeArtist(track.artist()));
+  }
+
+  private static String fold(String value, boolean artistSeparatorsToSpace) {
+    String source = isAscii(value) ? value : Normalizer.normalize(value, Normalizer.Form.NFD);
+    StringBuilder folded = new StringBuilder(source.length());
+    boolean pendingSpace = false;
+    for (int i = 0; i < source.length(); i++) {
+      char c = source.charAt(i);
+      if (artistSeparatorsToSpace && (c == ',' || c == '&')) {
+        c = ' ';
+      }
+      if (Character.isWhitespace(c)) {
+        pendingSpace = !folded.isEmpty();
+      } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        if (pendingSpace) {
+          folded.append(' ');
+          pendingSpace = false;
+        }
+        folded.append(Character.toLowerCase(c));
+      }
+    }
+    return folded.toString();
+  }
+
+  private static boolean isAscii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0x7F) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isArtistSeparator(String value, int start, int end) {
+    for (String separator : ARTIST_SEPARATORS) {
+      if (separator.length() == end - start && value.startsWith(separator, start)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
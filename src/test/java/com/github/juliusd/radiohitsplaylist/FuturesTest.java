@@ -0,0 +1,54 @@
+package com.github.juliusd.radiohitsplaylist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class FuturesTest {
+
+  @Test
+  void await_returnsResultOfTask() {
+    assertThat(
+            Futures.await(CompletableFuture.completedFuture("result"), IllegalStateException::new))
+        .isEqualTo("result");
+  }
+
+  @Test
+  void await_rethrowsUncheckedFailureAsItIs() {
+    var failure = new IllegalArgumentException("failed");
+
+    assertThatThrownBy(
+            () ->
+                Futures.await(CompletableFuture.failedFuture(failure), IllegalStateException::new))
+        .isSameAs(failure);
+  }
+
+  @Test
+  void await_wrapsCheckedFailureWithFactory() {
+    var failure = new IOException("failed");
+
+    assertThatThrownBy(
+            () ->
+                Futures.await(CompletableFuture.failedFuture(failure), IllegalStateException::new))
+        .isInstanceOf(IllegalStateException.class)
+        .hasCause(failure);
+  }
+
+  @Test
+  void await_keepsInterruptFlagWhenInterrupted() {
+    Future<String> neverCompleted = new CompletableFuture<>();
+    Thread.currentThread().interrupt();
+    try {
+      assertThatThrownBy(() -> Futures.await(neverCompleted, IllegalStateException::new))
+          .isInstanceOf(IllegalStateException.class)
+          .hasCauseInstanceOf(InterruptedException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
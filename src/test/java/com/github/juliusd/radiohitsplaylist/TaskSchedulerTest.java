@@ -0,0 +1,128 @@
+package com.github.juliusd.radiohitsplaylist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.github.juliusd.radiohitsplaylist.TaskScheduler.Task;
+import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TaskSchedulerTest {
+
+  private Notifier notifier;
+
+  @BeforeEach
+  void setUp() {
+    notifier = mock(Notifier.class);
+  }
+
+  @Test
+  void runsTasksOfDifferentGroupsConcurrently() {
+    var bothTasksStarted = new CountDownLatch(2);
+    var finishedTasks = new AtomicInteger();
+    Runnable awaitOtherTask =
+        () -> {
+          bothTasksStarted.countDown();
+          try {
+            // only returns if both tasks run at the same time
+            assertThat(bothTasksStarted.await(5, TimeUnit.SECONDS)).isTrue();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          finishedTasks.incrementAndGet();
+        };
+    var taskScheduler = new TaskScheduler(2, 1, notifier);
+    taskScheduler.addTaskGroup("first", () -> List.of(new Task("a", awaitOtherTask)));
+    taskScheduler.addTaskGroup("second", () -> List.of(new Task("b", awaitOtherTask)));
+
+    taskScheduler.run();
+
+    assertThat(finishedTasks).hasValue(2);
+    verify(notifier).recordTaskDuration(eq("a"), any());
+    verify(notifier).recordTaskDuration(eq("b"), any());
+    verify(notifier, never()).runFailed(any(), any());
+  }
+
+  @Test
+  void limitsConcurrentTasksPerGroup() {
+    var runningTasks = new AtomicInteger();
+    var maxRunningTasks = new AtomicInteger();
+    Runnable countRunningTasks =
+        () -> {
+          maxRunningTasks.accumulateAndGet(runningTasks.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          runningTasks.decrementAndGet();
+        };
+    var taskScheduler = new TaskScheduler(4, 2, notifier);
+    taskScheduler.addTaskGroup(
+        "group",
+        () ->
+            List.of(
+                new Task("a", countRunningTasks),
+                new Task("b", countRunningTasks),
+                new Task("c", countRunningTasks),
+                new Task("d", countRunningTasks),
+                new Task("e", countRunningTasks)));
+
+    taskScheduler.run();
+
+    assertThat(maxRunningTasks.get()).isBetween(1, 2);
+  }
+
+  @Test
+  void failureStopsOnlyTheFailingGroup() {
+    var failure = new IllegalStateException("upstream down");
+    var executedTasks = new AtomicInteger();
+    var taskScheduler = new TaskScheduler(2, 1, notifier);
+    taskScheduler.addTaskGroup(
+        "failing",
+        () ->
+            List.of(
+                new Task(
+                    "a",
+                    () -> {
+                      throw failure;
+                    }),
+                new Task("b", executedTasks::incrementAndGet)));
+    taskScheduler.addTaskGroup(
+        "healthy",
+        () ->
+            List.of(
+                new Task("c", executedTasks::incrementAndGet),
+                new Task("d", executedTasks::incrementAndGet)));
+
+    taskScheduler.run();
+
+    assertThat(executedTasks).hasValue(2);
+    verify(notifier).runFailed("failing", failure);
+    verify(notifier, never()).runFailed(eq("healthy"), any());
+  }
+
+  @Test
+  void failureWhileCreatingTasksIsReportedForTheGroup() {
+    var failure = new IllegalStateException("invalid config");
+    var taskScheduler = new TaskScheduler(2, 1, notifier);
+    taskScheduler.addTaskGroup(
+        "broken",
+        () -> {
+          throw failure;
+        });
+
+    taskScheduler.run();
+
+    verify(notifier).runFailed("broken", failure);
+  }
+}
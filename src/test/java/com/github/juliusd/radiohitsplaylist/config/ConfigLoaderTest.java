@@ -51,6 +51,7 @@ class ConfigLoaderTest {
         - playlistId: targetPlaylistId7
           streamName: myHitStream2
           descriptionPrefix: my other prefix2
+          hours: [8, 16]
       youngPeopleUrl: https://www.example.org/youngpeople
       reCreateYoungPeoplePlaylistTasks:
         - programName: program/name
@@ -108,6 +109,28 @@ class ConfigLoaderTest {
        notifyOnFailure: true
        gotifyUrl: https://example.org/gotify
        gotifyApiToken: myApiToken
+      trackCache:
+        memoryCacheSize: 1000
+        preloadMemoryCache: true
+        negativeCacheTtlDays: 3
+        minMatchConfidence: 0.8
+        revalidateAfterDays: 14
+        maxRevalidationsPerRun: 500
+        maxSize: 20000
+        preloadHotSetSize: 200
+        backend: append-log
+      trackSearch:
+        concurrency: 8
+        mode: broad
+        broadSearchLimit: 30
+        minBroadMatchScore: 0.85
+      taskExecution:
+        maxConcurrentTasks: 6
+        maxConcurrentTasksPerGroup: 3
+      spotifyRequests:
+        requestsPerSecond: 2.5
+        burst: 5
+        maxRetries: 1
       """);
 
     Configuration configuration = new ConfigLoader().loadConfig(path.toString());
@@ -179,9 +202,9 @@ class ConfigLoaderTest {
                 "https://www.example.org/f",
                 List.of(
                     new ReCreateBerlinHitRadioPlaylistTaskConfiguration(
-                        "myHitStream1", "targetPlaylistId6", "my prefix2"),
+                        "myHitStream1", "targetPlaylistId6", "my prefix2", List.of(6, 9, 12, 15)),
                     new ReCreateBerlinHitRadioPlaylistTaskConfiguration(
-                        "myHitStream2", "targetPlaylistId7", "my other prefix2")),
+                        "myHitStream2", "targetPlaylistId7", "my other prefix2", List.of(8, 16))),
                 List.of(
                     new ReCreateYoungPeoplePlaylistTaskConfiguration(
                         "program/name", "targetPlaylistId12", "Young People Prefix")),
@@ -193,8 +216,12 @@ class ConfigLoaderTest {
                     new ReCreateBundesmuxPlaylistTaskConfiguration(
                         "myBundesStream2", "targetPlaylistId9", "my other prefix7")),
                 List.of(soundgraphConfig1, soundgraphConfig2),
-                new NotifierConfiguration(
-                    false, true, "https://example.org/gotify", "myApiToken")));
+                new NotifierConfiguration(false, true, "https://example.org/gotify", "myApiToken"),
+                new TrackCacheConfiguration(
+                    1000, true, 3, 0.8, 14, 500, 20000, 200, TrackCacheBackend.APPEND_LOG),
+                new TrackSearchConfiguration(8, TrackSearchMode.BROAD, 30, 0.85),
+                new TaskExecutionConfiguration(6, 3),
+                new SpotifyRequestConfiguration(2.5, 5, 1)));
   }
 
   @Test
@@ -237,6 +264,31 @@ class ConfigLoaderTest {
     assertThat(configuration.gotify()).isNull();
   }
 
+  @Test
+  void optionalSectionsFallBackToDefaults() throws IOException {
+    Path path =
+        givenConfig(
+            // language=yaml
+            """
+      ---
+      spotify:
+        refreshToken: myRefreshToken
+        clientId: myClientId
+        clientSecret: myClientSecret
+      """);
+
+    Configuration configuration = new ConfigLoader().loadConfig(path.toString());
+    assertThat(configuration.trackCache())
+        .isEqualTo(
+            new TrackCacheConfiguration(
+                5000, false, 7, 1.0, 30, 1000, 100_000, 500, TrackCacheBackend.SQLITE));
+    assertThat(configuration.trackSearch())
+        .isEqualTo(new TrackSearchConfiguration(4, TrackSearchMode.SEQUENTIAL, 20, 0.9));
+    assertThat(configuration.taskExecution()).isEqualTo(new TaskExecutionConfiguration(4, 2));
+    assertThat(configuration.spotifyRequests())
+        .isEqualTo(new SpotifyRequestConfiguration(5.0, 10, 3));
+  }
+
   private Path givenConfig(String config) throws IOException {
     Path path = Files.createFile(tempDirectory.resolve("test.yaml"));
     Files.write(path, config.getBytes());
@@ -3,6 +3,7 @@ package com.github.juliusd.radiohitsplaylist.monitoring;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -207,9 +208,9 @@ class NotificationTextBuilderTest {
       statistic.recordPlaylistRefresh("myStream", 12);
       statistic.recordInitialCacheSize(100);
       statistic.recordFinalCacheSize(105);
-      statistic.recordCacheHit();
-      statistic.recordCacheHit();
-      statistic.recordCacheHit();
+      statistic.recordCacheHit(CacheTier.DATABASE);
+      statistic.recordCacheHit(CacheTier.DATABASE);
+      statistic.recordCacheHit(CacheTier.DATABASE);
 
       String result = NotificationTextBuilder.createMessageText(statistic);
 
@@ -231,8 +232,8 @@ class NotificationTextBuilderTest {
       statistic.recordPlaylistRefresh("myStream", 12);
       statistic.recordInitialCacheSize(100);
       statistic.recordFinalCacheSize(105);
-      statistic.recordCacheMiss();
-      statistic.recordCacheMiss();
+      statistic.recordCacheMiss(CacheTier.DATABASE);
+      statistic.recordCacheMiss(CacheTier.DATABASE);
 
       String result = NotificationTextBuilder.createMessageText(statistic);
 
@@ -254,11 +255,11 @@ class NotificationTextBuilderTest {
       statistic.recordPlaylistRefresh("myStream", 12);
       statistic.recordInitialCacheSize(100);
       statistic.recordFinalCacheSize(105);
-      statistic.recordCacheHit();
-      statistic.recordCacheHit();
-      statistic.recordCacheMiss();
-      statistic.recordCacheMiss();
-      statistic.recordCacheMiss();
+      statistic.recordCacheHit(CacheTier.DATABASE);
+      statistic.recordCacheHit(CacheTier.DATABASE);
+      statistic.recordCacheMiss(CacheTier.DATABASE);
+      statistic.recordCacheMiss(CacheTier.DATABASE);
+      statistic.recordCacheMiss(CacheTier.DATABASE);
 
       String result = NotificationTextBuilder.createMessageText(statistic);
 
@@ -274,6 +275,51 @@ class NotificationTextBuilderTest {
       assertThat(result).isEqualTo(expected);
     }
 
+    @Test
+    void canCreateMessageTextWithMemoryCacheHits() {
+      var statistic = new Statistic();
+      statistic.recordPlaylistRefresh("myStream", 12);
+      statistic.recordInitialCacheSize(100);
+      statistic.recordFinalCacheSize(105);
+      statistic.recordCacheHit(CacheTier.MEMORY);
+      statistic.recordCacheHit(CacheTier.MEMORY);
+      statistic.recordCacheMiss(CacheTier.MEMORY);
+      statistic.recordCacheHit(CacheTier.DATABASE);
+
+      String result = NotificationTextBuilder.createMessageText(statistic);
+
+      String expected =
+          """
+        Run finished successfully after ???
+
+        Refreshed playlists (1):
+        - myStream: 12 tracks
+
+        Track cache: 105 total tracks (+5 new), 3 cache hits (2 from memory)
+        """;
+      assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void canCreateMessageTextWithSlowestTask() {
+      var statistic = new Statistic();
+      statistic.recordPlaylistRefresh("myStream", 12);
+      statistic.recordTaskDuration("myStream", Duration.ofSeconds(4));
+      statistic.recordTaskDuration("otherStream", Duration.ofSeconds(75));
+
+      String result = NotificationTextBuilder.createMessageText(statistic);
+
+      String expected =
+          """
+        Run finished successfully after ???
+
+        Refreshed playlists (1):
+        - myStream: 12 tracks
+        Slowest task: otherStream (1 min 15 sec)
+        """;
+      assertThat(result).isEqualTo(expected);
+    }
+
     @Test
     void canCreatePartialFailureMessageText() {
       var statistic = new Statistic();
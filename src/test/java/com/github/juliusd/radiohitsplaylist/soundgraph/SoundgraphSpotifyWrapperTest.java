@@ -3,10 +3,14 @@ package com.github.juliusd.radiohitsplaylist.soundgraph;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.github.juliusd.radiohitsplaylist.spotify.PlaylistWriter;
+import com.github.juliusd.radiohitsplaylist.spotify.SpotifyRequestExecutor;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import se.michaelthelin.spotify.SpotifyApi;
@@ -21,7 +25,12 @@ class SoundgraphSpotifyWrapperTest {
   void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
     wireMock = wmRuntimeInfo.getWireMock();
     var spotifyApi = buildSpotifyApiForLocalhost(wmRuntimeInfo.getHttpPort());
-    soundgraphSpotifyWrapper = new SoundgraphSpotifyWrapper(spotifyApi);
+    var requestExecutor = new SpotifyRequestExecutor(100, 100, 0, Duration.ZERO);
+    soundgraphSpotifyWrapper =
+        new SoundgraphSpotifyWrapper(
+            spotifyApi,
+            requestExecutor,
+            new PlaylistWriter(spotifyApi, requestExecutor, ForkJoinPool.commonPool()));
   }
 
   @Test
@@ -5,9 +5,13 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.github.juliusd.radiohitsplaylist.config.SoundgraphConfig;
+import com.github.juliusd.radiohitsplaylist.spotify.PlaylistWriter;
+import com.github.juliusd.radiohitsplaylist.spotify.SpotifyRequestExecutor;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import se.michaelthelin.spotify.SpotifyApi;
@@ -22,7 +26,12 @@ class SoundgraphTest {
   void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
     wireMock = wmRuntimeInfo.getWireMock();
     var spotifyApi = buildSpotifyApiForLocalhost(wmRuntimeInfo.getHttpPort());
-    var soundgraphSpotifyWrapper = new SoundgraphSpotifyWrapper(spotifyApi);
+    var requestExecutor = new SpotifyRequestExecutor(100, 100, 0, Duration.ZERO);
+    var soundgraphSpotifyWrapper =
+        new SoundgraphSpotifyWrapper(
+            spotifyApi,
+            requestExecutor,
+            new PlaylistWriter(spotifyApi, requestExecutor, ForkJoinPool.commonPool()));
     soundgraphService = new SoundgraphService(soundgraphSpotifyWrapper);
   }
 
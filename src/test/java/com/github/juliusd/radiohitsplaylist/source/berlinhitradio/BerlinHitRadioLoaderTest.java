@@ -0,0 +1,90 @@
+package com.github.juliusd.radiohitsplaylist.source.berlinhitradio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BerlinHitRadioLoaderTest {
+
+  @Mock private BerlinHitRadioClient berlinHitRadioClient;
+
+  private ExecutorService executor;
+  private BerlinHitRadioLoader berlinHitRadioLoader;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    berlinHitRadioLoader = new BerlinHitRadioLoader(berlinHitRadioClient, executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void load_requestsHoursConcurrentlyAndMergesThemInHourOrder() {
+    var allRequestsStarted = new CountDownLatch(3);
+    when(berlinHitRadioClient.hitFinder("stream1", -1, 15, 48))
+        .thenAnswer(invocation -> awaitAll(allRequestsStarted, track("Song 3"), track("Song 4")));
+    when(berlinHitRadioClient.hitFinder("stream1", -1, 9, 48))
+        .thenAnswer(invocation -> awaitAll(allRequestsStarted, track("Song 2"), track("Song 3")));
+    when(berlinHitRadioClient.hitFinder("stream1", -1, 6, 48))
+        .thenAnswer(invocation -> awaitAll(allRequestsStarted, track("Song 1")));
+
+    List<Track> tracks = berlinHitRadioLoader.load("stream1", List.of(15, 6, 9, 15));
+
+    assertThat(tracks)
+        .containsExactly(
+            new Track("Song 1", "Artist"),
+            new Track("Song 2", "Artist"),
+            new Track("Song 3", "Artist"),
+            new Track("Song 4", "Artist"));
+  }
+
+  @Test
+  void load_rethrowsFailedRequest() {
+    var failure = new IllegalStateException("history not available");
+    when(berlinHitRadioClient.hitFinder("stream1", -1, 6, 48)).thenReturn(List.of());
+    when(berlinHitRadioClient.hitFinder("stream1", -1, 9, 48)).thenThrow(failure);
+
+    assertThatThrownBy(() -> berlinHitRadioLoader.load("stream1", List.of(6, 9))).isSameAs(failure);
+  }
+
+  @Test
+  void load_returnsNothingForEmptyHistory() {
+    when(berlinHitRadioClient.hitFinder(eq("stream1"), eq(-1), anyInt(), eq(48)))
+        .thenReturn(List.of());
+
+    assertThat(berlinHitRadioLoader.load("stream1", List.of(6, 9, 12, 15))).isEmpty();
+  }
+
+  /** Only returns if all requests run at the same time. */
+  private static List<BerlinHitRadioTrackWrapper> awaitAll(
+      CountDownLatch allRequestsStarted, BerlinHitRadioTrackWrapper... tracks)
+      throws InterruptedException {
+    allRequestsStarted.countDown();
+    assertThat(allRequestsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    return List.of(tracks);
+  }
+
+  private static BerlinHitRadioTrackWrapper track(String title) {
+    return new BerlinHitRadioTrackWrapper(new BerlinHitRadioTrack(title, "Artist"));
+  }
+}
@@ -0,0 +1,90 @@
+package com.github.juliusd.radiohitsplaylist.source.bundesmux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BundesmuxLoaderTest {
+
+  @Mock private BundesmuxClient bundesmuxClient;
+
+  private ExecutorService executor;
+  private BundesmuxLoader bundesmuxLoader;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    bundesmuxLoader = new BundesmuxLoader(bundesmuxClient, executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void load_requestsPagesConcurrentlyAndKeepsPageOrder() {
+    var requestsStarted = new CountDownLatch(4);
+    when(bundesmuxClient.load(eq("stream1"), anyString(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              requestsStarted.countDown();
+              // only returns if the first pages are requested at the same time
+              assertThat(requestsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+              int page = invocation.getArgument(2);
+              return switch (page) {
+                case 5 -> page("Song 1", "Song 2");
+                case 6 -> page("Coming Up", "Song 3");
+                case 17 -> page("Song 3", "Song 4");
+                default -> page();
+              };
+            });
+
+    List<Track> tracks = bundesmuxLoader.load("stream1");
+
+    assertThat(tracks)
+        .containsExactly(
+            new Track("Song 4", "Artist"),
+            new Track("Song 3", "Artist"),
+            new Track("Song 2", "Artist"),
+            new Track("Song 1", "Artist"));
+  }
+
+  @Test
+  void load_rethrowsFailedRequest() {
+    var failure = new IllegalStateException("page not available");
+    when(bundesmuxClient.load(eq("stream1"), anyString(), anyInt())).thenReturn(page());
+    when(bundesmuxClient.load(eq("stream1"), anyString(), eq(9))).thenThrow(failure);
+
+    assertThatThrownBy(() -> bundesmuxLoader.load("stream1")).isSameAs(failure);
+  }
+
+  private static String page(String... titles) {
+    return Arrays.stream(titles)
+        .map(title -> "<div><div>12:00</div><div>Artist</div><div>" + title + "</div></div>")
+        .collect(
+            Collectors.joining(
+                "",
+                "<turbo-stream action=\"append\"><template><div>",
+                "</div></template></turbo-stream>"));
+  }
+}
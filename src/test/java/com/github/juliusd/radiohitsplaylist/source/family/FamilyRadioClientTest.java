@@ -39,7 +39,11 @@ class FamilyRadioClientTest {
             null,
             List.of(),
             List.of(),
-            new NotifierConfiguration(false, false, null, null));
+            new NotifierConfiguration(false, false, null, null),
+            null,
+            null,
+            null,
+            null);
     familyRadioClient = new FamilyRadioClientConfiguration(configuration).familyRadioClient();
   }
 
@@ -0,0 +1,279 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppendLogTrackCacheTest {
+
+  private static final double ANY_CONFIDENCE = 0.0;
+  private static final Clock STORE_CLOCK =
+      Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+  private static final Track TRACK = new Track("Levitating", "Dua Lipa & DaBaby");
+  private static final URI URI_1 = URI.create("spotify:track:levitating123456");
+  private static final Track OTHER_TRACK = new Track("Flowers", "Miley Cyrus");
+  private static final URI OTHER_URI = URI.create("spotify:track:flowers123456789");
+
+  @TempDir Path tempDir;
+
+  private Path logPath;
+  private TrackCache trackCache;
+
+  @BeforeEach
+  void setUp() {
+    logPath = tempDir.resolve("test_track_cache.log");
+    trackCache = new AppendLogTrackCache(logPath.toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    trackCache.close();
+  }
+
+  @Test
+  void findTracks_matchesStoredTrackAndOtherSpellings() {
+    var otherSpelling = new Track("LEVITATING", "Dua Lipa feat. DaBaby");
+    var unknownTrack = new Track("Unknown Song", "Artist");
+    trackCache.storeTrack(TRACK, URI_1);
+
+    assertThat(trackCache.findTracks(List.of(TRACK, otherSpelling, unknownTrack), ANY_CONFIDENCE))
+        .containsOnly(entry(TRACK, URI_1), entry(otherSpelling, URI_1));
+    assertThat(trackCache.findTrack(otherSpelling)).contains(URI_1);
+    assertThat(trackCache.findTrack(unknownTrack)).isEmpty();
+  }
+
+  @Test
+  void findTracks_prefersExactSpellingAndIgnoresMappingsBelowMinConfidence() {
+    var otherSpelling = new Track("LEVITATING", "DUA LIPA & DABABY");
+    var fuzzyUri = URI.create("spotify:track:fuzzy12345678901");
+    trackCache.storeTrack(TRACK, fuzzyUri, QueryVariant.UNQUOTED, 0.8);
+    trackCache.storeTrack(otherSpelling, URI_1);
+
+    assertThat(trackCache.findTracks(List.of(TRACK), ANY_CONFIDENCE))
+        .containsEntry(TRACK, fuzzyUri);
+    assertThat(trackCache.findTracks(List.of(TRACK), 0.9)).containsEntry(TRACK, URI_1);
+    assertThat(trackCache.loadTracks(10, 0.9)).containsOnlyKeys(otherSpelling);
+  }
+
+  @Test
+  void cache_replaysLogAfterReopening() {
+    var removedTrack = new Track("Removed Song", "Artist");
+    var removedUri = URI.create("spotify:track:removed123456789");
+    var jingle = new Track("Jingle", "Station");
+    trackCache.storeTrack(TRACK, URI_1, QueryVariant.FIRST_ARTIST_QUOTED, 0.95);
+    trackCache.storeTrack(removedTrack, removedUri);
+    trackCache.storeUnresolvableTrack(jingle);
+    trackCache.flush();
+    trackCache.storeRevalidatedTracks(Map.of(removedUri, Optional.empty()));
+    trackCache.recordHits(List.of(TRACK, TRACK));
+    trackCache.close();
+
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.getCacheSize()).isEqualTo(1);
+    assertThat(trackCache.findTracks(List.of(TRACK, removedTrack), 0.9))
+        .containsOnly(entry(TRACK, URI_1));
+    assertThat(trackCache.findUnresolvableTracks(List.of(jingle), Duration.ofDays(1)))
+        .containsExactly(jingle);
+    assertThat(trackCache.loadHotTracks(10, ANY_CONFIDENCE)).containsOnlyKeys(TRACK);
+  }
+
+  @Test
+  void storeTrack_keepsHitCountOfReplacedMapping() {
+    var relinkedUri = URI.create("spotify:track:relinked12345678");
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.storeTrack(OTHER_TRACK, OTHER_URI);
+    trackCache.recordHits(List.of(TRACK));
+
+    trackCache.storeTrack(TRACK, relinkedUri);
+    trackCache.close();
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.loadHotTracks(10, ANY_CONFIDENCE))
+        .containsExactly(entry(TRACK, relinkedUri));
+  }
+
+  @Test
+  void cache_dropsIncompleteRecordAtTheEndOfTheLog() throws IOException {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.close();
+    long completeSize = Files.size(logPath);
+    try (var channel = FileChannel.open(logPath, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1, 2, 3}));
+    }
+
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.findTrack(TRACK)).contains(URI_1);
+    assertThat(Files.size(logPath)).isEqualTo(completeSize);
+  }
+
+  @Test
+  void cache_dropsRecordWithWrongChecksumAtTheEndOfTheLog() throws IOException {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.flush();
+    long firstRecordEnd = Files.size(logPath);
+    trackCache.storeTrack(OTHER_TRACK, OTHER_URI);
+    trackCache.close();
+    flipByte(Files.size(logPath) - 1);
+
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.findTrack(TRACK)).contains(URI_1);
+    assertThat(trackCache.findTrack(OTHER_TRACK)).isEmpty();
+    assertThat(Files.size(logPath)).isEqualTo(firstRecordEnd);
+  }
+
+  @Test
+  void cache_skipsCorruptRecordWithinTheLogWithoutTruncating() throws IOException {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.flush();
+    long firstRecordEnd = Files.size(logPath);
+    trackCache.storeTrack(OTHER_TRACK, OTHER_URI);
+    trackCache.close();
+    long size = Files.size(logPath);
+    flipByte(firstRecordEnd - 1);
+
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.findTrack(TRACK)).isEmpty();
+    assertThat(trackCache.findTrack(OTHER_TRACK)).contains(OTHER_URI);
+    assertThat(Files.size(logPath)).isEqualTo(size);
+  }
+
+  @Test
+  void cache_failsOnUnreadableRecordHeaderWithinTheLog() throws IOException {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.close();
+    long size = Files.size(logPath);
+    try (var channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), 0);
+    }
+
+    assertThatThrownBy(() -> new AppendLogTrackCache(logPath.toString()))
+        .isInstanceOf(TrackCacheException.class)
+        .hasMessageContaining("Failed to open track cache log")
+        .hasStackTraceContaining("Corrupt record header at offset 0");
+    assertThat(Files.size(logPath)).isEqualTo(size);
+  }
+
+  @Test
+  void cache_failsOnRecordOfUnknownTypeAndReleasesTheLog() throws IOException {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.close();
+    long size = Files.size(logPath);
+    ByteBuffer payload = ByteBuffer.allocate(9).put((byte) 99).putInt(0).putInt(0).flip();
+    var crc = new CRC32();
+    crc.update(payload.duplicate());
+    try (var channel = FileChannel.open(logPath, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.allocate(8).putInt(9).putInt((int) crc.getValue()).flip());
+      channel.write(payload);
+    }
+
+    assertThatThrownBy(() -> new AppendLogTrackCache(logPath.toString()))
+        .isInstanceOf(TrackCacheException.class)
+        .hasMessageContaining("Failed to open track cache log")
+        .hasStackTraceContaining("Unknown record type 99");
+
+    try (var channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+    }
+    trackCache = new AppendLogTrackCache(logPath.toString());
+    assertThat(trackCache.findTrack(TRACK)).contains(URI_1);
+  }
+
+  @Test
+  void cache_rejectsLogWhichIsAlreadyOpen() {
+    assertThatThrownBy(() -> new AppendLogTrackCache(logPath.toString()))
+        .isInstanceOf(TrackCacheException.class)
+        .hasMessageContaining("Failed to open track cache log")
+        .hasStackTraceContaining("is already opened by this process");
+
+    trackCache.close();
+    trackCache = new AppendLogTrackCache(logPath.toString());
+  }
+
+  @Test
+  void cache_compactsLogWithManyOutdatedRecords() throws IOException {
+    trackCache.close();
+    trackCache = new AppendLogTrackCache(logPath.toString(), 1);
+    for (int i = 0; i < 1000; i++) {
+      trackCache.recordHits(List.of(TRACK));
+      trackCache.storeTrack(TRACK, URI_1);
+    }
+    trackCache.close();
+    long uncompactedSize = Files.size(logPath);
+
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(Files.size(logPath)).isLessThan(uncompactedSize / 100);
+    assertThat(trackCache.findTrack(TRACK)).contains(URI_1);
+  }
+
+  @Test
+  void findStaleTracks_andEvictLeastRecentlyUsed() {
+    trackCache.close();
+    var tracks = IntStream.range(0, 4).mapToObj(i -> new Track("Song " + i, "Artist")).toList();
+    try (var cache = new AppendLogTrackCache(logPath.toString(), 10, STORE_CLOCK)) {
+      for (int i = 0; i < tracks.size(); i++) {
+        cache.storeTrack(tracks.get(i), URI.create("spotify:track:" + i + "000000000000000"));
+      }
+    }
+    trackCache =
+        new AppendLogTrackCache(
+            logPath.toString(), 10, Clock.offset(STORE_CLOCK, Duration.ofDays(40)));
+    trackCache.findTracks(List.of(tracks.get(0)), ANY_CONFIDENCE);
+    trackCache.recordHits(List.of(tracks.get(1)));
+
+    assertThat(trackCache.findStaleTracks(Duration.ofDays(30), 10)).hasSize(4);
+    assertThat(trackCache.evictLeastRecentlyUsed(2)).isEqualTo(2);
+    assertThat(trackCache.findTracks(tracks, ANY_CONFIDENCE))
+        .containsOnlyKeys(tracks.get(0), tracks.get(1));
+  }
+
+  @Test
+  void clearCache_removesAllEntriesFromTheLog() {
+    trackCache.storeTrack(TRACK, URI_1);
+    trackCache.flush();
+
+    trackCache.clearCache();
+    trackCache.close();
+    trackCache = new AppendLogTrackCache(logPath.toString());
+
+    assertThat(trackCache.getCacheSize()).isZero();
+  }
+
+  private void flipByte(long position) throws IOException {
+    try (var channel =
+        FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(1);
+      channel.read(buffer, position);
+      buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+      buffer.rewind();
+      channel.write(buffer, position);
+    }
+  }
+}
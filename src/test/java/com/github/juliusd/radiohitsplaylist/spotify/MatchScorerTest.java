@@ -0,0 +1,38 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MatchScorerTest {
+
+  private static final URI URI_1 = URI.create("spotify:track:1111111111111111");
+
+  @Test
+  void score_isExactForEqualTracksAfterNormalization() {
+    var track = new Track("Flowers", "Miley Cyrus");
+    var spotifyTrack = new SpotifyTrack("flowers ", List.of("Miley Cyrus"), URI_1, null);
+
+    assertThat(MatchScorer.score(track, spotifyTrack)).isEqualTo(MatchScorer.EXACT_MATCH);
+  }
+
+  @Test
+  void score_staysBelowExactForSimilarTracks() {
+    var track = new Track("Flowers", "Miley Cyrus");
+    var spotifyTrack = new SpotifyTrack("Flowers - Demo", List.of("Miley Cyrus"), URI_1, null);
+
+    assertThat(MatchScorer.score(track, spotifyTrack))
+        .isLessThan(MatchScorer.EXACT_MATCH)
+        .isGreaterThan(0.5);
+  }
+
+  @Test
+  void levenshteinDistance_countsEdits() {
+    assertThat(MatchScorer.levenshteinDistance("kitten", "sitting")).isEqualTo(3);
+    assertThat(MatchScorer.levenshteinDistance("", "abc")).isEqualTo(3);
+    assertThat(MatchScorer.levenshteinDistance("abc", "abc")).isZero();
+  }
+}
@@ -0,0 +1,136 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PlaylistDiffTest {
+
+  @Test
+  void compute_isEmptyForUnchangedPlaylist() {
+    List<String> uris = uris(0, 250);
+
+    PlaylistDiff diff = PlaylistDiff.compute(uris, uris);
+
+    assertThat(diff.isEmpty()).isTrue();
+    assertThat(diff.requestCount()).isZero();
+  }
+
+  @Test
+  void compute_removesDroppedAndInsertsNewTracks() {
+    List<String> current = uris(0, 250);
+    List<String> wanted = new ArrayList<>(uris(3, 250));
+    wanted.addAll(0, uris(1000, 1002));
+
+    PlaylistDiff diff = PlaylistDiff.compute(current, wanted);
+
+    assertThat(diff.isFullReplace()).isFalse();
+    assertThat(diff.removalChunks()).containsExactly(uris(0, 3));
+    assertThat(diff.insertions()).containsExactly(new PlaylistDiff.Insertion(0, uris(1000, 1002)));
+    assertThat(apply(current, diff)).isEqualTo(wanted);
+  }
+
+  @Test
+  void compute_movesOnlyTracksOutOfOrder() {
+    List<String> current = uris(0, 250);
+    List<String> wanted = new ArrayList<>(current);
+    wanted.add(10, wanted.remove(200));
+
+    PlaylistDiff diff = PlaylistDiff.compute(current, wanted);
+
+    assertThat(diff.removalChunks()).containsExactly(List.of(uri(200)));
+    assertThat(diff.insertions())
+        .containsExactly(new PlaylistDiff.Insertion(10, List.of(uri(200))));
+    assertThat(apply(current, diff)).isEqualTo(wanted);
+  }
+
+  @Test
+  void compute_splitsLongInsertionsIntoRequestsOfHundredTracks() {
+    List<String> current = uris(0, 500);
+    List<String> wanted = new ArrayList<>(current);
+    wanted.addAll(100, uris(1000, 1150));
+
+    PlaylistDiff diff = PlaylistDiff.compute(current, wanted);
+
+    assertThat(diff.insertions())
+        .containsExactly(
+            new PlaylistDiff.Insertion(100, uris(1000, 1100)),
+            new PlaylistDiff.Insertion(200, uris(1100, 1150)));
+    assertThat(apply(current, diff)).isEqualTo(wanted);
+  }
+
+  @Test
+  void compute_replacesPlaylistIfThatNeedsNoMoreRequests() {
+    List<String> current = uris(0, 250);
+    List<String> wanted = new ArrayList<>(current);
+    Collections.reverse(wanted);
+
+    assertThat(PlaylistDiff.compute(current, wanted).isFullReplace()).isTrue();
+    assertThat(PlaylistDiff.compute(current, uris(1000, 1250)).isFullReplace()).isTrue();
+  }
+
+  @Test
+  void compute_replacesPlaylistWithDuplicates() {
+    List<String> current = new ArrayList<>(uris(0, 250));
+    current.add(uri(3));
+
+    assertThat(PlaylistDiff.compute(current, uris(0, 250)).isFullReplace()).isTrue();
+  }
+
+  @Test
+  void compute_resultsInWantedPlaylistForRandomChanges() {
+    var random = new Random(42);
+    int partialUpdates = 0;
+    for (int run = 0; run < 200; run++) {
+      List<String> current = uris(0, 300 + random.nextInt(300));
+      List<String> wanted = new ArrayList<>(current);
+      int changes = random.nextInt(6);
+      for (int i = 0; i < changes; i++) {
+        switch (random.nextInt(3)) {
+          case 0 -> wanted.remove(random.nextInt(wanted.size()));
+          case 1 -> wanted.add(random.nextInt(wanted.size()), uri(1000 + run * 100 + i));
+          default -> wanted.add(random.nextInt(wanted.size()), wanted.remove(0));
+        }
+      }
+
+      PlaylistDiff diff = PlaylistDiff.compute(current, wanted);
+
+      if (!diff.isFullReplace()) {
+        assertThat(diff.requestCount())
+            .isLessThan(PlaylistDiff.replaceRequestCount(wanted.size()))
+            .isEqualTo(diff.removalChunks().size() + diff.insertions().size());
+        assertThat(apply(current, diff)).isEqualTo(wanted);
+        partialUpdates++;
+      }
+    }
+    assertThat(partialUpdates).isGreaterThan(100);
+  }
+
+  /** Applies the diff like Spotify: removal by URI removes it anywhere in the playlist. */
+  private static List<String> apply(List<String> current, PlaylistDiff diff) {
+    List<String> playlist = new ArrayList<>(current);
+    for (List<String> chunk : diff.removalChunks()) {
+      assertThat(chunk).hasSizeLessThanOrEqualTo(PlaylistDiff.MAX_ITEMS_PER_REQUEST);
+      playlist.removeAll(new HashSet<>(chunk));
+    }
+    for (PlaylistDiff.Insertion insertion : diff.insertions()) {
+      assertThat(insertion.uris()).hasSizeLessThanOrEqualTo(PlaylistDiff.MAX_ITEMS_PER_REQUEST);
+      playlist.addAll(insertion.position(), insertion.uris());
+    }
+    return playlist;
+  }
+
+  private static List<String> uris(int fromInclusive, int toExclusive) {
+    return IntStream.range(fromInclusive, toExclusive).mapToObj(PlaylistDiffTest::uri).toList();
+  }
+
+  private static String uri(int number) {
+    return "spotify:track:" + number;
+  }
+}
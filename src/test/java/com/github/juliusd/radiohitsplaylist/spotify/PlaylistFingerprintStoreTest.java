@@ -0,0 +1,44 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlaylistFingerprintStoreTest {
+
+  private static final URI URI_1 = URI.create("spotify:track:1111111111111111");
+  private static final URI URI_2 = URI.create("spotify:track:2222222222222222");
+
+  @TempDir Path tempDir;
+
+  @Test
+  void store_keepsLatestFingerprintPerPlaylistAfterReopening() {
+    String databasePath = tempDir.resolve("playlist_fingerprints.db").toString();
+    var first = new PlaylistFingerprint("hash1", "snapshot1", "Hits");
+    var second = new PlaylistFingerprint("hash2", null, null);
+    try (var store = new PlaylistFingerprintStore(databasePath)) {
+      store.store("playlist1", first);
+      store.store("playlist2", first);
+      store.store("playlist2", second);
+    }
+
+    try (var store = new PlaylistFingerprintStore(databasePath)) {
+      assertThat(store.find("playlist1")).contains(first);
+      assertThat(store.find("playlist2")).contains(second);
+      assertThat(store.find("unknown")).isEmpty();
+    }
+  }
+
+  @Test
+  void hash_dependsOnOrderOfTracks() {
+    assertThat(PlaylistFingerprint.hash(List.of(URI_1, URI_2)))
+        .isEqualTo(PlaylistFingerprint.hash(List.of(URI_1, URI_2)))
+        .isNotEqualTo(PlaylistFingerprint.hash(List.of(URI_2, URI_1)))
+        .isNotEqualTo(PlaylistFingerprint.hash(List.of(URI_1)))
+        .hasSize(64);
+  }
+}
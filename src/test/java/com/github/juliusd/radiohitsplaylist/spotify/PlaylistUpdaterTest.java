@@ -0,0 +1,199 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.model_objects.specification.Playlist;
+
+class PlaylistUpdaterTest {
+
+  private static final Track TRACK_1 = new Track("Song 1", "Artist 1");
+  private static final Track TRACK_2 = new Track("Song 2", "Artist 2");
+  private static final Track TRACK_3 = new Track("Song 3", "Artist 3");
+  private static final URI URI_1 = URI.create("spotify:track:1111111111111111");
+  private static final URI URI_2 = URI.create("spotify:track:2222222222222222");
+  private static final URI URI_3 = URI.create("spotify:track:3333333333333333");
+
+  @TempDir Path tempDir;
+
+  private TrackCache trackCache;
+  private PlaylistFingerprintStore fingerprintStore;
+  private SpotifyRequestExecutor requestExecutor;
+  private TrackFinder trackFinder;
+  private ExecutorService searchExecutor;
+  private PlaylistUpdater playlistUpdater;
+
+  @BeforeEach
+  void setUp() {
+    trackCache = new SqliteTrackCache(tempDir.resolve("test_track_cache.db").toString());
+    trackFinder = mock(TrackFinder.class);
+    searchExecutor = Executors.newFixedThreadPool(3);
+    fingerprintStore =
+        new PlaylistFingerprintStore(tempDir.resolve("playlist_fingerprints.db").toString());
+    requestExecutor = mock(SpotifyRequestExecutor.class);
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, Duration.ofDays(7), 0.9, mock(Notifier.class));
+    playlistUpdater =
+        new PlaylistUpdater(
+            trackFinder,
+            tieredTrackCache,
+            searchExecutor,
+            new PlaylistWriter(mock(SpotifyApi.class), requestExecutor, searchExecutor),
+            fingerprintStore);
+  }
+
+  @AfterEach
+  void tearDown() {
+    searchExecutor.shutdownNow();
+    trackCache.close();
+    fingerprintStore.close();
+  }
+
+  @Test
+  void findSpotifyTrackIds_searchesMissesConcurrentlyAndKeepsPlaylistOrder() {
+    trackCache.storeTrack(TRACK_2, URI_2);
+    var allSearchesStarted = new CountDownLatch(2);
+    when(trackFinder.findMatch(any()))
+        .thenAnswer(
+            invocation -> {
+              allSearchesStarted.countDown();
+              // only returns if both searches run at the same time
+              assertThat(allSearchesStarted.await(5, TimeUnit.SECONDS)).isTrue();
+              Track track = invocation.getArgument(0);
+              return Optional.of(exactMatch(track.equals(TRACK_1) ? URI_1 : URI_3));
+            });
+
+    var result = playlistUpdater.findSpotifyTrackIds(List.of(TRACK_1, TRACK_2, TRACK_3, TRACK_1));
+
+    assertThat(result).containsExactly(URI_1, URI_2, URI_3, URI_1);
+    verify(trackFinder, times(2)).findMatch(any());
+    assertThat(trackCache.findTrack(TRACK_3)).contains(URI_3);
+  }
+
+  @Test
+  void findSpotifyTrackIds_skipsTracksWhichCannotBeFound() {
+    when(trackFinder.findMatch(TRACK_1)).thenReturn(Optional.of(exactMatch(URI_1)));
+    when(trackFinder.findMatch(TRACK_2)).thenReturn(Optional.empty());
+
+    var result = playlistUpdater.findSpotifyTrackIds(List.of(TRACK_1, TRACK_2));
+
+    assertThat(result).containsExactly(URI_1);
+  }
+
+  @Test
+  void findSpotifyTrackIds_rethrowsSearchFailures() {
+    var failure = new SpotifyException("search failed", null);
+    when(trackFinder.findMatch(any())).thenThrow(failure);
+
+    assertThatThrownBy(() -> playlistUpdater.findSpotifyTrackIds(List.of(TRACK_1)))
+        .isSameAs(failure);
+  }
+
+  @Test
+  void update_skipsUnchangedPlaylist() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    fingerprintStore.store(
+        "playlist1",
+        new PlaylistFingerprint(PlaylistFingerprint.hash(List.of(URI_1)), "snapshot1", null));
+    givenSnapshotId("snapshot1");
+
+    playlistUpdater.update(List.of(TRACK_1), "playlist1", null);
+
+    verify(requestExecutor).execute(eq("load snapshot of playlist playlist1"), any());
+    verifyNoMoreInteractions(requestExecutor);
+  }
+
+  @Test
+  void update_writesPlaylistChangedSinceLastRun() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    String uriHash = PlaylistFingerprint.hash(List.of(URI_1));
+    fingerprintStore.store("playlist1", new PlaylistFingerprint(uriHash, "snapshot1", null));
+    givenSnapshotId("snapshot2");
+
+    playlistUpdater.update(List.of(TRACK_1), "playlist1", null);
+
+    verify(requestExecutor).execute(eq("replace tracks of playlist playlist1"), any());
+    assertThat(fingerprintStore.find("playlist1"))
+        .contains(new PlaylistFingerprint(uriHash, "snapshot2", null));
+  }
+
+  @Test
+  void update_writesPlaylistWhoseSnapshotWasUnknown() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    String uriHash = PlaylistFingerprint.hash(List.of(URI_1));
+    fingerprintStore.store("playlist1", new PlaylistFingerprint(uriHash, null, null));
+    givenSnapshotId(null);
+
+    playlistUpdater.update(List.of(TRACK_1), "playlist1", null);
+
+    verify(requestExecutor).execute(eq("replace tracks of playlist playlist1"), any());
+    assertThat(fingerprintStore.find("playlist1"))
+        .contains(new PlaylistFingerprint(uriHash, null, null));
+  }
+
+  @Test
+  void update_skipsUnchangedPlaylistWithSameDescriptionPrefix() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    fingerprintStore.store(
+        "playlist1",
+        new PlaylistFingerprint(PlaylistFingerprint.hash(List.of(URI_1)), "snapshot1", "Hits"));
+    givenSnapshotId("snapshot1");
+
+    playlistUpdater.update(List.of(TRACK_1), "playlist1", " Hits ");
+
+    verify(requestExecutor).execute(eq("load snapshot of playlist playlist1"), any());
+    verifyNoMoreInteractions(requestExecutor);
+  }
+
+  @Test
+  void update_onlyUpdatesChangedDescriptionOfUnchangedPlaylist() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    String uriHash = PlaylistFingerprint.hash(List.of(URI_1));
+    fingerprintStore.store("playlist1", new PlaylistFingerprint(uriHash, "snapshot1", "Old Hits"));
+    givenSnapshotId("snapshot1");
+
+    playlistUpdater.update(List.of(TRACK_1), "playlist1", "Hits");
+
+    verify(requestExecutor).execute(eq("load snapshot of playlist playlist1"), any());
+    verify(requestExecutor).execute(eq("update description of playlist playlist1"), any());
+    verifyNoMoreInteractions(requestExecutor);
+    assertThat(fingerprintStore.find("playlist1"))
+        .contains(new PlaylistFingerprint(uriHash, "snapshot1", "Hits"));
+  }
+
+  private void givenSnapshotId(String snapshotId) {
+    when(requestExecutor.execute(startsWith("load snapshot of playlist"), any()))
+        .thenReturn(new Playlist.Builder().setSnapshotId(snapshotId).build());
+  }
+
+  private static TrackMatch exactMatch(URI uri) {
+    return new TrackMatch(
+        new SpotifyTrack("Song", List.of(), uri, null),
+        QueryVariant.QUOTED,
+        MatchScorer.EXACT_MATCH);
+  }
+}
@@ -0,0 +1,174 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.michaelthelin.spotify.SpotifyApi;
+
+@WireMockTest
+class PlaylistWriterTest {
+
+  private static final String PLAYLIST_PATH = "/v1/playlists/playlist1";
+  private static final String TRACKS_PATH = PLAYLIST_PATH + "/tracks";
+
+  private ExecutorService descriptionExecutor;
+  private PlaylistWriter playlistWriter;
+  private WireMock wireMock;
+
+  @BeforeEach
+  void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
+    wireMock = wmRuntimeInfo.getWireMock();
+    var spotifyApi =
+        new SpotifyApi.Builder()
+            .setScheme("http")
+            .setHost("localhost")
+            .setPort(wmRuntimeInfo.getHttpPort())
+            .setAccessToken("test-token")
+            .build();
+    descriptionExecutor = Executors.newSingleThreadExecutor();
+    playlistWriter =
+        new PlaylistWriter(
+            spotifyApi,
+            new SpotifyRequestExecutor(100, 100, 0, Duration.ZERO),
+            descriptionExecutor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    descriptionExecutor.shutdownNow();
+  }
+
+  @Test
+  void write_replacesSmallPlaylistAndUpdatesDescription() {
+    wireMock.register(put(urlPathEqualTo(TRACKS_PATH)).willReturn(okJson(snapshot("s1"))));
+    wireMock.register(put(urlPathEqualTo(PLAYLIST_PATH)).willReturn(ok()));
+    givenSnapshotId("s2");
+
+    String snapshotId = playlistWriter.write("playlist1", uris(0, 3), "Hits 01.01.2024");
+
+    assertThat(snapshotId).isEqualTo("s2");
+    wireMock.verifyThat(
+        putRequestedFor(urlPathEqualTo(TRACKS_PATH))
+            .withRequestBody(equalToJson("{\"uris\": " + json(uris(0, 3)) + "}")));
+    wireMock.verifyThat(
+        putRequestedFor(urlPathEqualTo(PLAYLIST_PATH))
+            .withRequestBody(matchingJsonPath("$.description", equalTo("Hits 01.01.2024"))));
+  }
+
+  @Test
+  void write_removesAndInsertsOnlyChangedTracksOfLargePlaylist() {
+    givenPlaylistItems(uris(0, 250));
+    wireMock.register(delete(urlPathEqualTo(TRACKS_PATH)).willReturn(okJson(snapshot("s2"))));
+    wireMock.register(post(urlPathEqualTo(TRACKS_PATH)).willReturn(okJson(snapshot("s3"))));
+    List<URI> wanted = new ArrayList<>(uris(1, 250));
+    wanted.add(10, uri(1000));
+
+    String snapshotId = playlistWriter.write("playlist1", wanted, null);
+
+    assertThat(snapshotId).isEqualTo("s3");
+    wireMock.verifyThat(0, putRequestedFor(urlPathEqualTo(TRACKS_PATH)));
+    wireMock.verifyThat(
+        deleteRequestedFor(urlPathEqualTo(TRACKS_PATH))
+            .withRequestBody(
+                equalToJson(
+                    "{\"tracks\": [{\"uri\": \"" + uri(0) + "\"}], \"snapshot_id\": \"s1\"}")));
+    wireMock.verifyThat(
+        postRequestedFor(urlPathEqualTo(TRACKS_PATH))
+            .withQueryParam("position", equalTo("10"))
+            .withRequestBody(equalToJson("{\"uris\": " + json(List.of(uri(1000))) + "}")));
+  }
+
+  @Test
+  void write_leavesLargePlaylistWithSameTracksUntouched() {
+    givenPlaylistItems(uris(0, 250));
+
+    String snapshotId = playlistWriter.write("playlist1", uris(0, 250), null);
+
+    assertThat(snapshotId).isEqualTo("s1");
+    wireMock.verifyThat(0, putRequestedFor(urlPathEqualTo(TRACKS_PATH)));
+    wireMock.verifyThat(0, deleteRequestedFor(urlPathEqualTo(TRACKS_PATH)));
+    wireMock.verifyThat(0, postRequestedFor(urlPathEqualTo(TRACKS_PATH)));
+  }
+
+  @Test
+  void write_returnsSnapshotOfLastTrackRequestWithoutLoadingIt() {
+    wireMock.register(put(urlPathEqualTo(TRACKS_PATH)).willReturn(okJson(snapshot("s1"))));
+
+    assertThat(playlistWriter.write("playlist1", uris(0, 3), null)).isEqualTo("s1");
+    wireMock.verifyThat(0, getRequestedFor(urlPathEqualTo(PLAYLIST_PATH)));
+  }
+
+  @Test
+  void replace_neverLoadsSnapshotId() {
+    wireMock.register(put(urlPathEqualTo(TRACKS_PATH)).willReturn(okJson("{}")));
+    wireMock.register(put(urlPathEqualTo(PLAYLIST_PATH)).willReturn(ok()));
+
+    playlistWriter.replace("playlist1", uris(0, 3), "Hits 01.01.2024");
+
+    wireMock.verifyThat(putRequestedFor(urlPathEqualTo(PLAYLIST_PATH)));
+    wireMock.verifyThat(0, getRequestedFor(urlPathEqualTo(PLAYLIST_PATH)));
+  }
+
+  private void givenSnapshotId(String snapshotId) {
+    wireMock.register(
+        get(urlPathEqualTo(PLAYLIST_PATH))
+            .withQueryParam("fields", equalTo("snapshot_id"))
+            .willReturn(okJson(snapshot(snapshotId))));
+  }
+
+  private void givenPlaylistItems(List<URI> uris) {
+    wireMock.register(
+        get(urlPathEqualTo(PLAYLIST_PATH))
+            .withQueryParam("fields", containing("tracks"))
+            .willReturn(
+                okJson(
+                    "{\"snapshot_id\": \"s1\", \"tracks\": {\"total\": "
+                        + uris.size()
+                        + ", \"items\": "
+                        + items(uris.subList(0, 100))
+                        + "}}")));
+    for (int offset = 100; offset < uris.size(); offset += 100) {
+      List<URI> page = uris.subList(offset, Math.min(offset + 100, uris.size()));
+      wireMock.register(
+          get(urlPathEqualTo(TRACKS_PATH))
+              .withQueryParam("offset", equalTo(String.valueOf(offset)))
+              .willReturn(okJson("{\"items\": " + items(page) + "}")));
+    }
+  }
+
+  private static String items(List<URI> uris) {
+    return uris.stream()
+        .map(uri -> "{\"track\": {\"type\": \"track\", \"uri\": \"" + uri + "\"}}")
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private static String json(List<URI> uris) {
+    return uris.stream().map(uri -> "\"" + uri + "\"").collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private static String snapshot(String snapshotId) {
+    return "{\"snapshot_id\": \"" + snapshotId + "\"}";
+  }
+
+  private static List<URI> uris(int fromInclusive, int toExclusive) {
+    return IntStream.range(fromInclusive, toExclusive).mapToObj(PlaylistWriterTest::uri).toList();
+  }
+
+  private static URI uri(int number) {
+    return URI.create("spotify:track:" + number);
+  }
+}
@@ -0,0 +1,108 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import se.michaelthelin.spotify.exceptions.detailed.BadGatewayException;
+import se.michaelthelin.spotify.exceptions.detailed.NotFoundException;
+import se.michaelthelin.spotify.exceptions.detailed.ServiceUnavailableException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+
+class SpotifyRequestExecutorTest {
+
+  private static final Duration RETRY_DELAY = Duration.ofMillis(10);
+
+  @Test
+  void retriesServerErrors() {
+    var requestExecutor = new SpotifyRequestExecutor(1000, 10, 3, RETRY_DELAY);
+    var attempts = new AtomicInteger();
+
+    String result =
+        requestExecutor.execute(
+            "load something",
+            () -> {
+              switch (attempts.incrementAndGet()) {
+                case 1 -> throw new BadGatewayException("Bad Gateway");
+                case 2 -> throw new ServiceUnavailableException("Service Unavailable");
+                default -> {
+                  return "ok";
+                }
+              }
+            });
+
+    assertThat(result).isEqualTo("ok");
+    assertThat(requestExecutor.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  void givesUpAfterMaxRetries() {
+    var requestExecutor = new SpotifyRequestExecutor(1000, 10, 2, RETRY_DELAY);
+    var attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                requestExecutor.execute(
+                    "load something",
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new BadGatewayException("Bad Gateway");
+                    }))
+        .isInstanceOf(SpotifyException.class)
+        .hasMessage("3 attempts to load something failed")
+        .hasCauseInstanceOf(BadGatewayException.class);
+    assertThat(attempts).hasValue(3);
+  }
+
+  @Test
+  void doesNotRetryClientErrors() {
+    var requestExecutor = new SpotifyRequestExecutor(1000, 10, 3, RETRY_DELAY);
+    var attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                requestExecutor.execute(
+                    "load something",
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new NotFoundException("Not Found");
+                    }))
+        .isInstanceOf(SpotifyException.class)
+        .hasMessage("Failed to load something");
+    assertThat(attempts).hasValue(1);
+  }
+
+  @Test
+  void waitsForRetryAfterWhenRateLimited() {
+    var requestExecutor = new SpotifyRequestExecutor(1000, 10, 3, RETRY_DELAY);
+    var attempts = new AtomicInteger();
+
+    String result =
+        requestExecutor.execute(
+            "load something",
+            () -> {
+              if (attempts.incrementAndGet() == 1) {
+                throw new TooManyRequestsException("Too Many Requests", 1);
+              }
+              return "ok";
+            });
+
+    assertThat(result).isEqualTo("ok");
+    assertThat(requestExecutor.getRateLimitedResponseCount()).isEqualTo(1);
+    assertThat(requestExecutor.getThrottledTime()).isGreaterThan(Duration.ofMillis(900));
+  }
+
+  @Test
+  void spacesRequestsOnceTheBurstIsUsed() {
+    var requestExecutor = new SpotifyRequestExecutor(20, 1, 0, RETRY_DELAY);
+
+    for (int i = 0; i < 3; i++) {
+      requestExecutor.execute("load something", () -> "ok");
+    }
+
+    // the first request uses the burst, the next two wait 50ms each
+    assertThat(requestExecutor.getThrottledTime()).isGreaterThan(Duration.ofMillis(80));
+  }
+}
@@ -0,0 +1,507 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqliteTrackCacheTest {
+
+  private static final double ANY_CONFIDENCE = 0.0;
+
+  @TempDir Path tempDir;
+
+  private TrackCache trackCache;
+  private Path tempDbPath;
+
+  @BeforeEach
+  void setUp() {
+    tempDbPath = tempDir.resolve("test_track_cache.db");
+    trackCache = new SqliteTrackCache(tempDbPath.toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    trackCache.close();
+  }
+
+  @Test
+  void findTrack_returnsEmptyWhenTrackNotInCache() {
+    var track = new Track("Test Song", "Test Artist");
+
+    var result = trackCache.findTrack(track);
+
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  void storeTrack_andFindTrack_returnsStoredUri() {
+    var track = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1234567890abcdef");
+
+    trackCache.storeTrack(track, spotifyUri);
+    var result = trackCache.findTrack(track);
+
+    assertThat(result).contains(spotifyUri);
+  }
+
+  @Test
+  void findTrack_requiresSameNormalizedTrack() {
+    var originalTrack = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1234567890abcdef");
+    trackCache.storeTrack(originalTrack, spotifyUri);
+
+    // Different artist
+    var differentArtist = new Track("Test Song", "Different Artist");
+    assertThat(trackCache.findTrack(differentArtist)).isEmpty();
+
+    // Different title
+    var differentTitle = new Track("Different Song", "Test Artist");
+    assertThat(trackCache.findTrack(differentTitle)).isEmpty();
+
+    // Spellings which only differ in case are the same track
+    var differentCase = new Track("test song", "test artist");
+    assertThat(trackCache.findTrack(differentCase)).contains(spotifyUri);
+
+    // Exact match should still work
+    assertThat(trackCache.findTrack(originalTrack)).isPresent();
+  }
+
+  @Test
+  void findTracks_returnsOnlyCachedTracks() {
+    var cachedTrack = new Track("Test Song", "Test Artist");
+    var otherCachedTrack = new Track("Other Song", "Other Artist");
+    var unknownTrack = new Track("Unknown Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1111111111111111");
+    var otherSpotifyUri = URI.create("spotify:track:2222222222222222");
+    trackCache.storeTrack(cachedTrack, spotifyUri);
+    trackCache.storeTrack(otherCachedTrack, otherSpotifyUri);
+
+    var result =
+        trackCache.findTracks(List.of(cachedTrack, unknownTrack, otherCachedTrack), ANY_CONFIDENCE);
+
+    assertThat(result)
+        .hasSize(2)
+        .containsEntry(cachedTrack, spotifyUri)
+        .containsEntry(otherCachedTrack, otherSpotifyUri);
+  }
+
+  @Test
+  void findTracks_handlesDuplicatesAndEmptyInput() {
+    var track = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1111111111111111");
+    trackCache.storeTrack(track, spotifyUri);
+
+    assertThat(trackCache.findTracks(List.of(track, track), ANY_CONFIDENCE))
+        .containsOnlyKeys(track);
+    assertThat(trackCache.findTracks(List.of(), ANY_CONFIDENCE)).isEmpty();
+  }
+
+  @Test
+  void findTracks_resolvesMoreTracksThanOneBatch() {
+    var tracks =
+        IntStream.range(0, SqliteTrackCache.LOOKUP_BATCH_SIZE * 2 + 7)
+            .mapToObj(i -> new Track("Song " + i, "Artist " + i))
+            .toList();
+    tracks.forEach(
+        track ->
+            trackCache.storeTrack(
+                track, URI.create("spotify:track:" + track.title().replace(' ', '_'))));
+
+    var result = trackCache.findTracks(tracks, ANY_CONFIDENCE);
+
+    assertThat(result).hasSize(tracks.size());
+    assertThat(result.get(tracks.get(tracks.size() - 1)))
+        .isEqualTo(URI.create("spotify:track:Song_" + (tracks.size() - 1)));
+  }
+
+  @Test
+  void storeTrack_isBufferedUntilFlush() {
+    var track = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1234567890abcdef");
+
+    trackCache.storeTrack(track, spotifyUri);
+
+    assertThat(trackCache.findTrack(track)).contains(spotifyUri);
+    assertThat(trackCache.findTracks(List.of(track), ANY_CONFIDENCE))
+        .containsEntry(track, spotifyUri);
+    try (var otherCache = new SqliteTrackCache(tempDbPath.toString())) {
+      assertThat(otherCache.findTrack(track)).isEmpty();
+    }
+
+    trackCache.flush();
+
+    try (var otherCache = new SqliteTrackCache(tempDbPath.toString())) {
+      assertThat(otherCache.findTrack(track)).contains(spotifyUri);
+    }
+  }
+
+  @Test
+  void storeTrack_flushesWhenBufferIsFull() {
+    trackCache.close();
+    trackCache = new SqliteTrackCache(tempDbPath.toString(), 2);
+    var track1 = new Track("Song 1", "Artist 1");
+    var track2 = new Track("Song 2", "Artist 2");
+
+    trackCache.storeTrack(track1, URI.create("spotify:track:1111111111111111"));
+    trackCache.storeTrack(track2, URI.create("spotify:track:2222222222222222"));
+
+    try (var otherCache = new SqliteTrackCache(tempDbPath.toString())) {
+      assertThat(otherCache.findTracks(List.of(track1, track2), ANY_CONFIDENCE))
+          .containsOnlyKeys(track1, track2);
+    }
+  }
+
+  @Test
+  void storeTrack_replacesExistingEntry() {
+    var track = new Track("Test Song", "Test Artist");
+    var firstUri = URI.create("spotify:track:1111111111111111");
+    var secondUri = URI.create("spotify:track:2222222222222222");
+
+    // Store first URI
+    trackCache.storeTrack(track, firstUri);
+    assertThat(trackCache.findTrack(track)).contains(firstUri);
+
+    // Store second URI for same track (should replace)
+    trackCache.storeTrack(track, secondUri);
+    assertThat(trackCache.findTrack(track)).contains(secondUri);
+
+    // Cache size should still be 1
+    assertThat(trackCache.getCacheSize()).isEqualTo(1);
+  }
+
+  @Test
+  void getCacheSize_returnsCorrectCount() {
+    assertThat(trackCache.getCacheSize()).isEqualTo(0);
+
+    var track1 = new Track("Song 1", "Artist 1");
+    var track2 = new Track("Song 2", "Artist 2");
+    var uri1 = URI.create("spotify:track:1111111111111111");
+    var uri2 = URI.create("spotify:track:2222222222222222");
+
+    trackCache.storeTrack(track1, uri1);
+    assertThat(trackCache.getCacheSize()).isEqualTo(1);
+
+    trackCache.storeTrack(track2, uri2);
+    assertThat(trackCache.getCacheSize()).isEqualTo(2);
+  }
+
+  @Test
+  void clearCache_removesAllEntries() {
+    var track1 = new Track("Song 1", "Artist 1");
+    var track2 = new Track("Song 2", "Artist 2");
+    var uri1 = URI.create("spotify:track:1111111111111111");
+    var uri2 = URI.create("spotify:track:2222222222222222");
+
+    trackCache.storeTrack(track1, uri1);
+    trackCache.storeTrack(track2, uri2);
+    assertThat(trackCache.getCacheSize()).isEqualTo(2);
+
+    trackCache.clearCache();
+
+    assertThat(trackCache.getCacheSize()).isEqualTo(0);
+    assertThat(trackCache.findTrack(track1)).isEmpty();
+    assertThat(trackCache.findTrack(track2)).isEmpty();
+  }
+
+  @Test
+  void cache_persistsAcrossInstances() {
+    var track = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1234567890abcdef");
+
+    // Store in first instance
+    trackCache.storeTrack(track, spotifyUri);
+    assertThat(trackCache.findTrack(track)).contains(spotifyUri);
+    trackCache.flush();
+
+    // Create new instance with same database file
+    try (var newCache = new SqliteTrackCache(tempDbPath.toString())) {
+      assertThat(newCache.findTrack(track)).contains(spotifyUri);
+      assertThat(newCache.getCacheSize()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void cache_persistsAfterClose() {
+    var track = new Track("Test Song", "Test Artist");
+    var spotifyUri = URI.create("spotify:track:1234567890abcdef");
+
+    trackCache.storeTrack(track, spotifyUri);
+    trackCache.close();
+
+    trackCache = new SqliteTrackCache(tempDbPath.toString());
+    assertThat(trackCache.findTrack(track)).contains(spotifyUri);
+  }
+
+  @Test
+  void findTrack_failsAfterClose() {
+    trackCache.close();
+
+    assertThatThrownBy(() -> trackCache.findTrack(new Track("Test Song", "Test Artist")))
+        .isInstanceOf(SqliteException.class);
+
+    trackCache = new SqliteTrackCache(tempDbPath.toString());
+  }
+
+  @Test
+  void cache_handlesSpecialCharacters() {
+    var track = new Track("Song with \"quotes\" & symbols!", "Artist with 'apostrophe' & äöüèéê");
+    var spotifyUri = URI.create("spotify:track:special123456789");
+
+    trackCache.storeTrack(track, spotifyUri);
+    var result = trackCache.findTrack(track);
+
+    assertThat(result).contains(spotifyUri);
+  }
+
+  @Test
+  void cache_handlesUnicodeCharacters() {
+    var track = new Track("Müsik mit Ümlauts", "Künstler with 中文");
+    var spotifyUri = URI.create("spotify:track:unicode123456789");
+
+    trackCache.storeTrack(track, spotifyUri);
+    Optional<URI> result = trackCache.findTrack(track);
+
+    assertThat(result).contains(spotifyUri);
+  }
+
+  @Test
+  void findUnresolvableTracks_returnsFreshEntriesOnly() {
+    trackCache.close();
+    var storeClock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+    var lookupClock = Clock.offset(storeClock, Duration.ofDays(3));
+    var jingle = new Track("Jingle", "Station");
+    var otherTrack = new Track("Test Song", "Test Artist");
+    try (var cache = new SqliteTrackCache(tempDbPath.toString(), 10, storeClock)) {
+      cache.storeUnresolvableTrack(jingle);
+      assertThat(cache.findUnresolvableTracks(List.of(jingle, otherTrack), Duration.ofDays(1)))
+          .containsExactly(jingle);
+    }
+
+    trackCache = new SqliteTrackCache(tempDbPath.toString(), 10, lookupClock);
+
+    assertThat(trackCache.findUnresolvableTracks(List.of(jingle), Duration.ofDays(7)))
+        .containsExactly(jingle);
+    assertThat(trackCache.findUnresolvableTracks(List.of(jingle), Duration.ofDays(2))).isEmpty();
+    assertThat(trackCache.findTracks(List.of(jingle), ANY_CONFIDENCE)).isEmpty();
+    assertThat(trackCache.getCacheSize()).isEqualTo(0);
+  }
+
+  @Test
+  void clearCache_removesUnresolvableTracks() {
+    var jingle = new Track("Jingle", "Station");
+    trackCache.storeUnresolvableTrack(jingle);
+    trackCache.flush();
+
+    trackCache.clearCache();
+
+    assertThat(trackCache.findUnresolvableTracks(List.of(jingle), Duration.ofDays(7))).isEmpty();
+  }
+
+  @Test
+  void findTracks_ignoresMappingsBelowMinConfidence() {
+    var exactTrack = new Track("Exact Song", "Artist");
+    var fuzzyTrack = new Track("Fuzzy Song (Radio Edit)", "Artist");
+    var exactUri = URI.create("spotify:track:exact12345678901");
+    var fuzzyUri = URI.create("spotify:track:fuzzy12345678901");
+    trackCache.storeTrack(exactTrack, exactUri);
+    trackCache.storeTrack(fuzzyTrack, fuzzyUri, QueryVariant.UNQUOTED, 0.8);
+
+    assertThat(trackCache.findTracks(List.of(exactTrack, fuzzyTrack), 0.9))
+        .containsOnlyKeys(exactTrack);
+    trackCache.flush();
+    assertThat(trackCache.findTracks(List.of(exactTrack, fuzzyTrack), 0.9))
+        .containsOnlyKeys(exactTrack);
+    assertThat(trackCache.findTracks(List.of(exactTrack, fuzzyTrack), 0.8))
+        .containsEntry(fuzzyTrack, fuzzyUri);
+    assertThat(trackCache.loadTracks(10, 0.9)).containsOnlyKeys(exactTrack);
+    assertThat(trackCache.findTrack(fuzzyTrack)).contains(fuzzyUri);
+  }
+
+  @Test
+  void findTracks_matchesOtherSpellingsOfCachedTrack() {
+    var cachedTrack = new Track("Levitating", "Dua Lipa & DaBaby");
+    var otherSpelling = new Track("LEVITATING", "Dua Lipa feat. DaBaby");
+    var spotifyUri = URI.create("spotify:track:levitating123456");
+    trackCache.storeTrack(cachedTrack, spotifyUri);
+
+    assertThat(trackCache.findTracks(List.of(otherSpelling), ANY_CONFIDENCE))
+        .containsEntry(otherSpelling, spotifyUri);
+    trackCache.flush();
+    assertThat(trackCache.findTracks(List.of(otherSpelling), ANY_CONFIDENCE))
+        .containsEntry(otherSpelling, spotifyUri);
+    assertThat(trackCache.findTrack(otherSpelling)).contains(spotifyUri);
+  }
+
+  @Test
+  void findTracks_prefersMappingOfExactSpelling() {
+    var track = new Track("Song", "Artist");
+    var otherSpelling = new Track("SONG", "ARTIST");
+    var uri = URI.create("spotify:track:exact12345678901");
+    var otherUri = URI.create("spotify:track:other12345678901");
+    trackCache.storeTrack(track, uri, QueryVariant.UNQUOTED, 0.95);
+    trackCache.storeTrack(otherSpelling, otherUri);
+    trackCache.flush();
+
+    assertThat(trackCache.findTracks(List.of(track, otherSpelling), ANY_CONFIDENCE))
+        .containsEntry(track, uri)
+        .containsEntry(otherSpelling, otherUri);
+    assertThat(trackCache.findTrack(track)).contains(uri);
+    assertThat(trackCache.findTracks(List.of(new Track("song", "artist")), ANY_CONFIDENCE))
+        .containsValue(otherUri);
+  }
+
+  @Test
+  void findStaleTracks_returnsMappingsValidatedBeforeMaxAge() {
+    trackCache.close();
+    var storeClock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+    var oldUri = URI.create("spotify:track:old1234567890123");
+    var newUri = URI.create("spotify:track:new1234567890123");
+    try (var cache = new SqliteTrackCache(tempDbPath.toString(), 10, storeClock)) {
+      cache.storeTrack(new Track("Old Song", "Artist"), oldUri);
+      cache.storeTrack(new Track("OLD SONG", "Artist"), oldUri);
+    }
+    try (var cache =
+        new SqliteTrackCache(
+            tempDbPath.toString(), 10, Clock.offset(storeClock, Duration.ofDays(20)))) {
+      cache.storeTrack(new Track("New Song", "Artist"), newUri);
+    }
+
+    trackCache =
+        new SqliteTrackCache(
+            tempDbPath.toString(), 10, Clock.offset(storeClock, Duration.ofDays(40)));
+
+    assertThat(trackCache.findStaleTracks(Duration.ofDays(30), 10)).containsExactly(oldUri);
+    assertThat(trackCache.findStaleTracks(Duration.ofDays(10), 10)).containsExactly(oldUri, newUri);
+    assertThat(trackCache.findStaleTracks(Duration.ofDays(10), 1)).containsExactly(oldUri);
+  }
+
+  @Test
+  void storeRevalidatedTracks_relinksAndRemovesMappings() {
+    var keptTrack = new Track("Kept Song", "Artist");
+    var relinkedTrack = new Track("Relinked Song", "Artist");
+    var removedTrack = new Track("Removed Song", "Artist");
+    var keptUri = URI.create("spotify:track:kept123456789012");
+    var relinkedUri = URI.create("spotify:track:relinked12345678");
+    var replacementUri = URI.create("spotify:track:replacement12345");
+    var removedUri = URI.create("spotify:track:removed123456789");
+    trackCache.storeTrack(keptTrack, keptUri);
+    trackCache.storeTrack(relinkedTrack, relinkedUri);
+    trackCache.storeTrack(removedTrack, removedUri);
+
+    trackCache.storeRevalidatedTracks(
+        Map.of(
+            keptUri, Optional.of(keptUri),
+            relinkedUri, Optional.of(replacementUri),
+            removedUri, Optional.empty()));
+
+    assertThat(trackCache.findTracks(List.of(keptTrack, relinkedTrack, removedTrack), 0.0))
+        .containsOnly(entry(keptTrack, keptUri), entry(relinkedTrack, replacementUri));
+    assertThat(trackCache.getCacheSize()).isEqualTo(2);
+  }
+
+  @Test
+  void evictLeastRecentlyUsed_keepsRecentlyFoundTracks() {
+    trackCache.close();
+    var storeClock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+    var tracks = IntStream.range(0, 4).mapToObj(i -> new Track("Song " + i, "Artist")).toList();
+    try (var cache = new SqliteTrackCache(tempDbPath.toString(), 10, storeClock)) {
+      for (int i = 0; i < tracks.size(); i++) {
+        cache.storeTrack(tracks.get(i), URI.create("spotify:track:" + i + "000000000000000"));
+      }
+    }
+    trackCache =
+        new SqliteTrackCache(
+            tempDbPath.toString(), 10, Clock.offset(storeClock, Duration.ofDays(1)));
+    trackCache.findTracks(List.of(tracks.get(0)), ANY_CONFIDENCE);
+    trackCache.recordHits(List.of(tracks.get(1)));
+
+    assertThat(trackCache.evictLeastRecentlyUsed(2)).isEqualTo(2);
+
+    assertThat(trackCache.getCacheSize()).isEqualTo(2);
+    assertThat(trackCache.findTracks(tracks, ANY_CONFIDENCE))
+        .containsOnlyKeys(tracks.get(0), tracks.get(1));
+  }
+
+  @Test
+  void loadHotTracks_ordersByHitCount() {
+    var rareTrack = new Track("Rare Song", "Artist");
+    var hotTrack = new Track("Hot Song", "Artist");
+    var neverFoundTrack = new Track("Unknown Song", "Artist");
+    var rareUri = URI.create("spotify:track:rare123456789012");
+    var hotUri = URI.create("spotify:track:hot1234567890123");
+    trackCache.storeTrack(rareTrack, rareUri);
+    trackCache.storeTrack(hotTrack, hotUri);
+    trackCache.storeTrack(neverFoundTrack, URI.create("spotify:track:unknown123456789"));
+
+    trackCache.findTracks(List.of(rareTrack, hotTrack), ANY_CONFIDENCE);
+    trackCache.flush();
+    trackCache.findTracks(List.of(hotTrack), ANY_CONFIDENCE);
+    trackCache.recordHits(List.of(new Track("HOT SONG", "Artist")));
+
+    assertThat(trackCache.loadHotTracks(10, ANY_CONFIDENCE))
+        .containsExactly(entry(hotTrack, hotUri), entry(rareTrack, rareUri));
+    assertThat(trackCache.loadHotTracks(1, ANY_CONFIDENCE)).containsOnlyKeys(hotTrack);
+  }
+
+  @Test
+  void storeTrack_keepsHitCountOfReplacedMapping() {
+    var hotTrack = new Track("Hot Song", "Artist");
+    var otherTrack = new Track("Other Song", "Artist");
+    var otherUri = URI.create("spotify:track:other12345678901");
+    var relinkedUri = URI.create("spotify:track:relinked12345678");
+    trackCache.storeTrack(hotTrack, URI.create("spotify:track:hot1234567890123"));
+    trackCache.storeTrack(otherTrack, otherUri);
+    trackCache.findTracks(List.of(hotTrack, otherTrack), ANY_CONFIDENCE);
+    trackCache.flush();
+    trackCache.findTracks(List.of(hotTrack), ANY_CONFIDENCE);
+    trackCache.flush();
+
+    trackCache.storeTrack(hotTrack, relinkedUri);
+    trackCache.flush();
+
+    assertThat(trackCache.loadHotTracks(10, ANY_CONFIDENCE))
+        .containsExactly(entry(hotTrack, relinkedUri), entry(otherTrack, otherUri));
+  }
+
+  @Test
+  void cache_migratesCacheFilesWithoutConfidence() throws Exception {
+    trackCache.close();
+    Files.delete(tempDbPath);
+    try (var connection = DriverManager.getConnection("jdbc:sqlite:" + tempDbPath);
+        var stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE tracks (id INTEGER PRIMARY KEY AUTOINCREMENT, artist TEXT NOT NULL, title"
+              + " TEXT NOT NULL, spotify_uri TEXT NOT NULL, created_at DATETIME DEFAULT"
+              + " CURRENT_TIMESTAMP, UNIQUE(artist, title))");
+      stmt.execute(
+          "INSERT INTO tracks (artist, title, spotify_uri) VALUES ('Artist', 'Song',"
+              + " 'spotify:track:old1234567890123')");
+    }
+
+    trackCache = new SqliteTrackCache(tempDbPath.toString());
+
+    var track = new Track("Song", "Artist");
+    var otherSpelling = new Track("song", "artist");
+    assertThat(trackCache.findTracks(List.of(track, otherSpelling), MatchScorer.EXACT_MATCH))
+        .containsEntry(track, URI.create("spotify:track:old1234567890123"))
+        .containsEntry(otherSpelling, URI.create("spotify:track:old1234567890123"));
+  }
+}
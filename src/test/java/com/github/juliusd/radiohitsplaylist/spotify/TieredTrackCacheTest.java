@@ -0,0 +1,201 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.monitoring.CacheTier;
+import com.github.juliusd.radiohitsplaylist.monitoring.Notifier;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TieredTrackCacheTest {
+
+  private static final Track TRACK_1 = new Track("Song 1", "Artist 1");
+  private static final Track TRACK_2 = new Track("Song 2", "Artist 2");
+  private static final Track TRACK_3 = new Track("Song 3", "Artist 3");
+  private static final URI URI_1 = URI.create("spotify:track:1111111111111111");
+  private static final URI URI_2 = URI.create("spotify:track:2222222222222222");
+  private static final URI URI_3 = URI.create("spotify:track:3333333333333333");
+  private static final Duration NEGATIVE_CACHE_TTL = Duration.ofDays(7);
+  private static final double MIN_CONFIDENCE = 0.9;
+
+  @TempDir Path tempDir;
+
+  private TrackCache trackCache;
+  private Notifier notifier;
+
+  @BeforeEach
+  void setUp() {
+    trackCache = new SqliteTrackCache(tempDir.resolve("test_track_cache.db").toString());
+    notifier = mock(Notifier.class);
+  }
+
+  @AfterEach
+  void tearDown() {
+    trackCache.close();
+  }
+
+  @Test
+  void findTracks_recordsHitsAndMissesPerTier() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+
+    assertThat(tieredTrackCache.findTracks(List.of(TRACK_1, TRACK_2)).uris())
+        .containsOnlyKeys(TRACK_1)
+        .containsEntry(TRACK_1, URI_1);
+    assertThat(tieredTrackCache.findTracks(List.of(TRACK_1)).uris()).containsEntry(TRACK_1, URI_1);
+
+    verify(notifier, times(2)).recordCacheMiss(CacheTier.MEMORY);
+    verify(notifier).recordCacheHit(CacheTier.DATABASE);
+    verify(notifier).recordCacheMiss(CacheTier.DATABASE);
+    verify(notifier).recordCacheHit(CacheTier.MEMORY);
+  }
+
+  @Test
+  void findTracks_recordsNoMemoryStatisticsIfMemoryTierIsDisabled() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 0, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+
+    assertThat(tieredTrackCache.findTracks(List.of(TRACK_1, TRACK_2)).uris())
+        .containsOnlyKeys(TRACK_1);
+
+    verify(notifier, never()).recordCacheHit(CacheTier.MEMORY);
+    verify(notifier, never()).recordCacheMiss(CacheTier.MEMORY);
+    verify(notifier).recordCacheHit(CacheTier.DATABASE);
+    verify(notifier).recordCacheMiss(CacheTier.DATABASE);
+  }
+
+  @Test
+  void storeTrack_writesThroughToDatabase() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+
+    tieredTrackCache.storeTrack(TRACK_1, exactMatch(URI_1));
+    tieredTrackCache.flush();
+
+    assertThat(tieredTrackCache.findTracks(List.of(TRACK_1)).uris()).containsEntry(TRACK_1, URI_1);
+    verify(notifier).recordCacheHit(CacheTier.MEMORY);
+    assertThat(trackCache.findTrack(TRACK_1)).contains(URI_1);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedTrackWhenFull() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 2, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+    tieredTrackCache.storeTrack(TRACK_1, exactMatch(URI_1));
+    tieredTrackCache.storeTrack(TRACK_2, exactMatch(URI_2));
+    tieredTrackCache.findTracks(List.of(TRACK_1));
+
+    tieredTrackCache.storeTrack(TRACK_3, exactMatch(URI_3));
+    tieredTrackCache.findTracks(List.of(TRACK_1, TRACK_2, TRACK_3));
+
+    // TRACK_2 was evicted from memory but is still found in the database
+    verify(notifier, times(3)).recordCacheHit(CacheTier.MEMORY);
+    verify(notifier).recordCacheMiss(CacheTier.MEMORY);
+    verify(notifier).recordCacheHit(CacheTier.DATABASE);
+  }
+
+  @Test
+  void preload_fillsMemoryTierFromDatabase() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    trackCache.storeTrack(TRACK_2, URI_2);
+    trackCache.storeTrack(TRACK_3, URI_3);
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 2, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+
+    assertThat(tieredTrackCache.preload()).isEqualTo(2);
+    tieredTrackCache.findTracks(List.of(TRACK_2, TRACK_3));
+
+    verify(notifier, times(2)).recordCacheHit(CacheTier.MEMORY);
+  }
+
+  @Test
+  void preloadHotSet_fillsMemoryTierWithMostFrequentlyFoundTracks() {
+    trackCache.storeTrack(TRACK_1, URI_1);
+    trackCache.storeTrack(TRACK_2, URI_2);
+    trackCache.storeTrack(TRACK_3, URI_3);
+    trackCache.findTracks(List.of(TRACK_1, TRACK_2), MIN_CONFIDENCE);
+    trackCache.findTracks(List.of(TRACK_2), MIN_CONFIDENCE);
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+
+    assertThat(tieredTrackCache.preloadHotSet(1)).isEqualTo(1);
+    tieredTrackCache.findTracks(List.of(TRACK_1, TRACK_2));
+
+    verify(notifier).recordCacheHit(CacheTier.MEMORY);
+    verify(notifier).recordCacheMiss(CacheTier.MEMORY);
+  }
+
+  @Test
+  void findTracks_reportsUnresolvableTracksAsDatabaseHits() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+    tieredTrackCache.storeUnresolvableTrack(TRACK_1);
+
+    var cachedTracks = tieredTrackCache.findTracks(List.of(TRACK_1, TRACK_2));
+
+    assertThat(cachedTracks.uris()).isEmpty();
+    assertThat(cachedTracks.unresolvableTracks()).containsExactly(TRACK_1);
+    verify(notifier).recordCacheHit(CacheTier.DATABASE);
+    verify(notifier).recordCacheMiss(CacheTier.DATABASE);
+  }
+
+  @Test
+  void storeUnresolvableTrack_isIgnoredWhenNegativeCachingIsDisabled() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, Duration.ZERO, MIN_CONFIDENCE, notifier);
+    tieredTrackCache.storeUnresolvableTrack(TRACK_1);
+
+    var cachedTracks = tieredTrackCache.findTracks(List.of(TRACK_1));
+
+    assertThat(cachedTracks.unresolvableTracks()).isEmpty();
+    verify(notifier).recordCacheMiss(CacheTier.DATABASE);
+  }
+
+  @Test
+  void storeTrack_keepsUntrustedMatchesOutOfTheCacheResult() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+    var fuzzyMatch =
+        new TrackMatch(new SpotifyTrack("Song", List.of(), URI_1, null), QueryVariant.PLAIN, 0.5);
+
+    tieredTrackCache.storeTrack(TRACK_1, fuzzyMatch);
+    tieredTrackCache.flush();
+
+    assertThat(tieredTrackCache.findTracks(List.of(TRACK_1)).uris()).isEmpty();
+    verify(notifier).recordCacheMiss(CacheTier.DATABASE);
+    assertThat(trackCache.findTrack(TRACK_1)).contains(URI_1);
+  }
+
+  @Test
+  void findTracks_answersOtherSpellingsFromMemory() {
+    var tieredTrackCache =
+        new TieredTrackCache(trackCache, 10, NEGATIVE_CACHE_TTL, MIN_CONFIDENCE, notifier);
+    tieredTrackCache.storeTrack(
+        new Track("Komet", "Udo Lindenberg & Apache 207"), exactMatch(URI_1));
+    var otherSpelling = new Track("KOMET", "Udo Lindenberg, Apache 207");
+
+    assertThat(tieredTrackCache.findTracks(List.of(otherSpelling)).uris())
+        .containsEntry(otherSpelling, URI_1);
+    verify(notifier).recordCacheHit(CacheTier.MEMORY);
+  }
+
+  private static TrackMatch exactMatch(URI uri) {
+    return new TrackMatch(
+        new SpotifyTrack("Song", List.of(), uri, null),
+        QueryVariant.QUOTED,
+        MatchScorer.EXACT_MATCH);
+  }
+}
@@ -0,0 +1,174 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.michaelthelin.spotify.SpotifyApi;
+
+@WireMockTest
+class TrackCacheRevalidatorTest {
+
+  private static final Clock STORE_CLOCK =
+      Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+  private static final Duration REVALIDATE_AFTER = Duration.ofDays(30);
+
+  private static final Track KEPT_TRACK = new Track("Komet", "Udo Lindenberg");
+  private static final Track RELINKED_TRACK = new Track("Flowers", "Miley Cyrus");
+  private static final Track REMOVED_TRACK = new Track("Mensch", "Herbert Grönemeyer");
+  private static final URI KEPT_URI = URI.create("spotify:track:kept123456789012");
+  private static final URI RELINKED_URI = URI.create("spotify:track:relinked12345678");
+  private static final URI REPLACEMENT_URI = URI.create("spotify:track:replacement12345");
+  private static final URI REMOVED_URI = URI.create("spotify:track:removed123456789");
+
+  @TempDir Path tempDir;
+
+  private WireMock wireMock;
+  private SpotifyApi spotifyApi;
+  private TrackCache trackCache;
+
+  @BeforeEach
+  void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
+    wireMock = wmRuntimeInfo.getWireMock();
+    spotifyApi = buildSpotifyApiForLocalhost(wmRuntimeInfo.getHttpPort());
+    String databasePath = tempDir.resolve("test_track_cache.db").toString();
+    try (var cache = new SqliteTrackCache(databasePath, 10, STORE_CLOCK)) {
+      cache.storeTrack(KEPT_TRACK, KEPT_URI);
+      cache.storeTrack(RELINKED_TRACK, RELINKED_URI);
+      cache.storeTrack(REMOVED_TRACK, REMOVED_URI);
+    }
+    trackCache =
+        new SqliteTrackCache(databasePath, 10, Clock.offset(STORE_CLOCK, Duration.ofDays(40)));
+  }
+
+  @AfterEach
+  void tearDown() {
+    trackCache.close();
+  }
+
+  @Test
+  void revalidate_relinksAndRemovesStaleMappings() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/tracks"))
+            .withQueryParam("ids", equalTo("kept123456789012,relinked12345678,removed123456789"))
+            .withQueryParam("market", equalTo("DE"))
+            .willReturn(
+                okJson(
+                    """
+                    {
+                      "tracks": [
+                        {
+                          "id": "kept123456789012",
+                          "uri": "spotify:track:kept123456789012",
+                          "is_playable": true
+                        },
+                        {
+                          "id": "replacement12345",
+                          "uri": "spotify:track:replacement12345",
+                          "is_playable": true,
+                          "linked_from": {
+                            "id": "relinked12345678",
+                            "uri": "spotify:track:relinked12345678"
+                          }
+                        },
+                        null
+                      ]
+                    }
+                    """)));
+
+    int revalidated = revalidator(10).revalidate();
+
+    assertThat(revalidated).isEqualTo(3);
+    assertThat(trackCache.findTracks(List.of(KEPT_TRACK, RELINKED_TRACK, REMOVED_TRACK), 0.0))
+        .containsOnly(entry(KEPT_TRACK, KEPT_URI), entry(RELINKED_TRACK, REPLACEMENT_URI));
+    assertThat(trackCache.findStaleTracks(REVALIDATE_AFTER, 10)).isEmpty();
+  }
+
+  @Test
+  void revalidate_removesTracksNotPlayableInTheMarket() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/tracks"))
+            .willReturn(
+                okJson(
+                    """
+                    {
+                      "tracks": [
+                        {
+                          "id": "kept123456789012",
+                          "uri": "spotify:track:kept123456789012",
+                          "is_playable": false
+                        }
+                      ]
+                    }
+                    """)));
+
+    revalidator(1).revalidate();
+
+    assertThat(trackCache.findTracks(List.of(KEPT_TRACK), 0.0)).isEmpty();
+    assertThat(trackCache.findStaleTracks(REVALIDATE_AFTER, 10))
+        .containsExactlyInAnyOrder(RELINKED_URI, REMOVED_URI);
+  }
+
+  @Test
+  void revalidate_loadsAtMostFiftyTracksPerRequest() {
+    // stored 40 days after the other tracks, but checked another 40 days later
+    for (int i = 0; i < 60; i++) {
+      trackCache.storeTrack(
+          new Track("Song " + i, "Artist"), URI.create("spotify:track:" + (100000 + i)));
+    }
+    trackCache.close();
+    trackCache =
+        new SqliteTrackCache(
+            tempDir.resolve("test_track_cache.db").toString(),
+            10,
+            Clock.offset(STORE_CLOCK, Duration.ofDays(80)));
+    wireMock.register(get(urlPathEqualTo("/v1/tracks")).willReturn(okJson("{\"tracks\": []}")));
+
+    int revalidated = revalidator(100).revalidate();
+
+    assertThat(revalidated).isEqualTo(63);
+    wireMock.verifyThat(2, getRequestedFor(urlPathEqualTo("/v1/tracks")));
+    assertThat(
+            IntStream.range(0, 60)
+                .mapToObj(i -> new Track("Song " + i, "Artist"))
+                .filter(track -> trackCache.findTrack(track).isPresent()))
+        .isEmpty();
+  }
+
+  private TrackCacheRevalidator revalidator(int maxRevalidations) {
+    return new TrackCacheRevalidator(
+        spotifyApi,
+        new SpotifyRequestExecutor(100, 100, 0, Duration.ZERO),
+        trackCache,
+        REVALIDATE_AFTER,
+        maxRevalidations);
+  }
+
+  private static SpotifyApi buildSpotifyApiForLocalhost(int port) {
+    return new SpotifyApi.Builder()
+        .setScheme("http")
+        .setHost("localhost")
+        .setPort(port)
+        .setRefreshToken("spotifyRefreshToken")
+        .setClientId("123")
+        .setClientSecret("clientSecret")
+        .setAccessToken("myAccessToken")
+        .build();
+  }
+}
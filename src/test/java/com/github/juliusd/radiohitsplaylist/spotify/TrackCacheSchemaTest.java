@@ -0,0 +1,185 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.net.URI;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrackCacheSchemaTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void migrate_createsNewDatabaseInCurrentVersion() throws Exception {
+    try (Connection connection = open()) {
+      TrackCacheSchema.migrate(connection);
+
+      assertThat(TrackCacheSchema.readVersion(connection))
+          .isEqualTo(TrackCacheSchema.CURRENT_VERSION);
+    }
+  }
+
+  @Test
+  void migrate_upgradesUnversionedDatabaseAndKeepsItsEntries() throws Exception {
+    try (Connection connection = open();
+        var stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE tracks (id INTEGER PRIMARY KEY AUTOINCREMENT, artist TEXT NOT NULL, title"
+              + " TEXT NOT NULL, spotify_uri TEXT NOT NULL, created_at DATETIME DEFAULT"
+              + " CURRENT_TIMESTAMP, UNIQUE(artist, title))");
+      stmt.execute(
+          "INSERT INTO tracks (artist, title, spotify_uri) VALUES ('Peter Fox feat. Inéz',"
+              + " 'Zukunft Pink', 'spotify:track:old1234567890123')");
+
+      TrackCacheSchema.migrate(connection);
+
+      assertThat(TrackCacheSchema.readVersion(connection))
+          .isEqualTo(TrackCacheSchema.CURRENT_VERSION);
+    }
+
+    try (var trackCache = new SqliteTrackCache(tempDir.resolve("track_cache.db").toString())) {
+      var otherSpelling = new Track("Zukunft Pink", "Peter Fox, Inez");
+      assertThat(trackCache.findTracks(List.of(otherSpelling), MatchScorer.EXACT_MATCH))
+          .containsEntry(otherSpelling, URI.create("spotify:track:old1234567890123"));
+    }
+  }
+
+  @Test
+  void migrate_computesLookupKeysOfCurrentNormalizer() throws Exception {
+    List<Track> spellings =
+        List.of(
+            new Track("Zukunft Pink", "Peter Fox feat. Inéz"),
+            new Track("  Levitating ", "Dua Lipa & DaBaby"),
+            new Track("Ä Song", "X Ambassadors x Jamie N Commons"),
+            new Track("Title", "Artist ft. Featuring, Other"));
+    try (Connection connection = open();
+        var stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE tracks (id INTEGER PRIMARY KEY AUTOINCREMENT, artist TEXT NOT NULL, title"
+              + " TEXT NOT NULL, spotify_uri TEXT NOT NULL, created_at DATETIME DEFAULT"
+              + " CURRENT_TIMESTAMP, UNIQUE(artist, title))");
+      try (var insert =
+          connection.prepareStatement(
+              "INSERT INTO tracks (artist, title, spotify_uri) VALUES (?, ?, 'spotify:track:1')")) {
+        for (Track track : spellings) {
+          insert.setString(1, track.artist());
+          insert.setString(2, track.title());
+          insert.executeUpdate();
+        }
+      }
+
+      TrackCacheSchema.migrate(connection);
+
+      List<String> lookupKeys = new ArrayList<>();
+      try (var rs = stmt.executeQuery("SELECT lookup_key FROM tracks ORDER BY id")) {
+        while (rs.next()) {
+          lookupKeys.add(rs.getString("lookup_key"));
+        }
+      }
+      assertThat(lookupKeys)
+          .as("a changed normalization needs a migration which re-computes the lookup keys")
+          .containsExactlyElementsOf(spellings.stream().map(TrackNormalizer::lookupKey).toList());
+    }
+  }
+
+  @Test
+  void migrate_isANoOpForCurrentVersion() throws Exception {
+    try (Connection connection = open()) {
+      TrackCacheSchema.migrate(connection);
+      TrackCacheSchema.migrate(connection);
+
+      assertThat(TrackCacheSchema.readVersion(connection))
+          .isEqualTo(TrackCacheSchema.CURRENT_VERSION);
+    }
+  }
+
+  @Test
+  void migrate_answersLookupsFromCoveringIndexOnly() throws Exception {
+    try (Connection connection = open();
+        var stmt = connection.createStatement()) {
+      TrackCacheSchema.migrate(connection);
+
+      List<String> indexes = new ArrayList<>();
+      try (var rs =
+          stmt.executeQuery(
+              "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'tracks'")) {
+        while (rs.next()) {
+          indexes.add(rs.getString("name"));
+        }
+      }
+      assertThat(indexes)
+          .containsExactlyInAnyOrder(
+              "idx_lookup_key_covering",
+              "idx_spotify_uri_validated_at",
+              "sqlite_autoindex_tracks_1");
+
+      try (var rs =
+          stmt.executeQuery(
+              "EXPLAIN QUERY PLAN SELECT artist, title, lookup_key, spotify_uri FROM tracks WHERE"
+                  + " confidence >= 0.9 AND lookup_key IN ('a', 'b') ORDER BY confidence, id")) {
+        assertThat(rs.next()).isTrue();
+        assertThat(rs.getString("detail")).contains("COVERING INDEX idx_lookup_key_covering");
+      }
+    }
+  }
+
+  @Test
+  void migrate_indexesSpotifyUriForRevalidation() throws Exception {
+    try (Connection connection = open();
+        var stmt = connection.createStatement()) {
+      TrackCacheSchema.migrate(connection);
+
+      assertThat(
+              queryPlan(
+                  stmt,
+                  "UPDATE tracks SET spotify_uri = 'b', validated_at = 1 WHERE spotify_uri = 'a'"))
+          .anyMatch(
+              detail -> detail.contains("INDEX idx_spotify_uri_validated_at (spotify_uri=?)"));
+      assertThat(queryPlan(stmt, "DELETE FROM tracks WHERE spotify_uri = 'a'"))
+          .anyMatch(
+              detail -> detail.contains("INDEX idx_spotify_uri_validated_at (spotify_uri=?)"));
+      assertThat(
+              queryPlan(
+                  stmt,
+                  "SELECT spotify_uri FROM tracks WHERE validated_at < 1 GROUP BY spotify_uri"
+                      + " ORDER BY MIN(validated_at) LIMIT 10"))
+          .anyMatch(detail -> detail.contains("COVERING INDEX idx_spotify_uri_validated_at"));
+    }
+  }
+
+  @Test
+  void migrate_rejectsDatabaseOfNewerVersion() throws Exception {
+    try (Connection connection = open();
+        var stmt = connection.createStatement()) {
+      stmt.execute("PRAGMA user_version = " + (TrackCacheSchema.CURRENT_VERSION + 1));
+
+      assertThatThrownBy(() -> TrackCacheSchema.migrate(connection))
+          .isInstanceOf(SqliteException.class)
+          .hasMessageContaining("schema version " + (TrackCacheSchema.CURRENT_VERSION + 1));
+    }
+  }
+
+  private static List<String> queryPlan(Statement stmt, String sql) throws SQLException {
+    List<String> details = new ArrayList<>();
+    try (var rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+      while (rs.next()) {
+        details.add(rs.getString("detail"));
+      }
+    }
+    return details;
+  }
+
+  private Connection open() throws SQLException {
+    return DriverManager.getConnection("jdbc:sqlite:" + tempDir.resolve("track_cache.db"));
+  }
+}
@@ -0,0 +1,135 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrackCacheSnapshotTest {
+
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void writeAndRead_keepAllFieldsAndSortEntries() throws IOException {
+    var entries =
+        List.of(
+            new TrackCacheEntry(
+                new Track("Flowers", "Miley Cyrus"),
+                URI.create("spotify:track:flowers123456789"),
+                QueryVariant.FIRST_ARTIST_QUOTED,
+                0.93,
+                Instant.parse("2024-01-02T10:00:00Z"),
+                Instant.parse("2024-01-03T10:00:00Z"),
+                17),
+            new TrackCacheEntry(
+                new Track("Männer", "Herbert Grönemeyer"),
+                URI.create("spotify:local:Herbert+Grönemeyer::M%C3%A4nner:240"),
+                null,
+                1.0,
+                Instant.parse("2024-01-04T10:00:00Z"),
+                Instant.parse("2024-01-04T10:00:00Z"),
+                0),
+            new TrackCacheEntry(
+                new Track("Mensch", "Herbert Grönemeyer"),
+                URI.create("spotify:track:mensch123456789"),
+                QueryVariant.UNQUOTED,
+                0.9,
+                Instant.parse("2024-01-05T10:00:00Z"),
+                Instant.parse("2024-01-06T10:00:00Z"),
+                3));
+
+    List<TrackCacheEntry> read = TrackCacheSnapshot.read(new ByteArrayInputStream(write(entries)));
+
+    // sorted by UTF-8 bytes, in which "ä" comes after "e"
+    assertThat(read).containsExactly(entries.get(2), entries.get(1), entries.get(0));
+  }
+
+  @Test
+  void write_sharesKeyPrefixesAndCompresses() throws IOException {
+    var entries =
+        IntStream.range(0, 2000)
+            .mapToObj(
+                i ->
+                    new TrackCacheEntry(
+                        new Track("Song number " + i, "Artist " + (i % 50)),
+                        URI.create("spotify:track:" + (1_000_000_000_000_000_000L + i * 7919L)),
+                        QueryVariant.QUOTED,
+                        1.0,
+                        CLOCK.instant(),
+                        CLOCK.instant(),
+                        i % 10))
+            .toList();
+
+    byte[] snapshot = write(entries);
+
+    // The artist, title and URI alone take more than 60 bytes per entry
+    assertThat(snapshot.length).isLessThan(entries.size() * 20);
+    assertThat(TrackCacheSnapshot.read(new ByteArrayInputStream(snapshot))).hasSize(2000);
+  }
+
+  @Test
+  void read_rejectsOtherFiles() {
+    assertThatThrownBy(
+            () -> TrackCacheSnapshot.read(new ByteArrayInputStream("config: true".getBytes())))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Not a track cache snapshot");
+  }
+
+  @Test
+  void exportAndImport_seedAnotherCacheAndBackend() throws IOException {
+    var track = new Track("Levitating", "Dua Lipa & DaBaby");
+    var fuzzyTrack = new Track("Komet", "Udo Lindenberg & Apache 207");
+    var uri = URI.create("spotify:track:levitating123456");
+    var fuzzyUri = URI.create("spotify:track:komet1234567890");
+    Path snapshotPath = tempDir.resolve("track_cache.snapshot");
+    try (var source = new SqliteTrackCache(tempDir.resolve("source.db").toString(), 10, CLOCK)) {
+      source.storeTrack(track, uri);
+      source.storeTrack(fuzzyTrack, fuzzyUri, QueryVariant.UNQUOTED, 0.8);
+      source.recordHits(List.of(track, track));
+      TrackCacheSnapshotTool.exportSnapshot(source, snapshotPath);
+    }
+
+    try (var sqliteTarget =
+            new SqliteTrackCache(
+                tempDir.resolve("target.db").toString(),
+                10,
+                Clock.offset(CLOCK, Duration.ofDays(40)));
+        var appendLogTarget = new AppendLogTrackCache(tempDir.resolve("target.log").toString())) {
+      TrackCacheSnapshotTool.importSnapshot(sqliteTarget, snapshotPath);
+      TrackCacheSnapshotTool.importSnapshot(appendLogTarget, snapshotPath);
+
+      assertThat(sqliteTarget.exportEntries())
+          .containsExactlyInAnyOrderElementsOf(appendLogTarget.exportEntries());
+
+      for (TrackCache target : List.of(sqliteTarget, appendLogTarget)) {
+        assertThat(target.getCacheSize()).isEqualTo(2);
+        assertThat(target.findTracks(List.of(track, fuzzyTrack), 0.9)).containsOnlyKeys(track);
+        assertThat(target.loadHotTracks(10, 0.0)).containsOnlyKeys(track);
+      }
+      assertThat(sqliteTarget.findStaleTracks(Duration.ofDays(30), 10))
+          .containsExactlyInAnyOrder(uri, fuzzyUri);
+    }
+  }
+
+  private static byte[] write(List<TrackCacheEntry> entries) throws IOException {
+    var output = new ByteArrayOutputStream();
+    TrackCacheSnapshot.write(entries, output);
+    return output.toByteArray();
+  }
+}
@@ -4,10 +4,18 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.juliusd.radiohitsplaylist.Track;
+import com.github.juliusd.radiohitsplaylist.config.TrackSearchConfiguration;
+import com.github.juliusd.radiohitsplaylist.config.TrackSearchMode;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import se.michaelthelin.spotify.SpotifyApi;
@@ -16,13 +24,35 @@ import se.michaelthelin.spotify.SpotifyApi;
 class TrackFinderTest {
 
   private TrackFinder trackFinder;
+  private TrackFinder broadTrackFinder;
+  private TrackFinder parallelTrackFinder;
+  private ExecutorService queryExecutor;
   private WireMock wireMock;
 
   @BeforeEach
   void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
     wireMock = wmRuntimeInfo.getWireMock();
     var spotifyApi = buildSpotifyApiForLocalhost(wmRuntimeInfo.getHttpPort());
-    trackFinder = new TrackFinder(spotifyApi);
+    var requestExecutor = new SpotifyRequestExecutor(100, 100, 0, Duration.ZERO);
+    trackFinder = new TrackFinder(spotifyApi, requestExecutor);
+    broadTrackFinder =
+        new TrackFinder(
+            spotifyApi,
+            requestExecutor,
+            new TrackSearchConfiguration(1, TrackSearchMode.BROAD, 20, 0.9),
+            null);
+    queryExecutor = Executors.newFixedThreadPool(4);
+    parallelTrackFinder =
+        new TrackFinder(
+            spotifyApi,
+            requestExecutor,
+            new TrackSearchConfiguration(1, TrackSearchMode.PARALLEL, null, null),
+            queryExecutor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    queryExecutor.shutdownNow();
   }
 
   @Test
@@ -322,6 +352,177 @@ class TrackFinderTest {
         .contains("spotify:track:38T0tPVZHcPZyhtOcCP7pF");
   }
 
+  @Test
+  void broadSearchRanksAllCandidatesWithOneQuery() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("Komet - Udo Lindenberg & Apache 207"))
+            .willReturn(
+                okJson(
+                    searchResult(
+                        searchItem("karaoke", "Komet (Karaoke Version)", 90, "Karaoke Hits"),
+                        searchItem("compilation", "Komet", 40, "Udo Lindenberg", "Apache 207"),
+                        searchItem("original", "Komet", 78, "Udo Lindenberg", "Apache 207")))));
+
+    Optional<TrackMatch> match =
+        broadTrackFinder.findMatch(new Track("Komet", "Udo Lindenberg & Apache 207"));
+
+    assertThat(match).isPresent();
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:original");
+    assertThat(match.get().queryVariant()).isEqualTo(QueryVariant.PLAIN);
+    assertThat(match.get().isExactMatch()).isTrue();
+    verify(1, getRequestedFor(urlPathEqualTo("/v1/search")).withQueryParam("limit", equalTo("20")));
+    verify(1, getRequestedFor(urlPathEqualTo("/v1/search")));
+  }
+
+  @Test
+  void broadSearchFallsBackToNarrowQueriesBelowMinScore() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .willReturn(okJson(searchResult(searchItem("cover", "Mensch", 10, "Cover Band")))));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:\"Herbert Grönemeyer\" track:\"Mensch\""))
+            .willReturn(
+                okJson(searchResult(searchItem("original", "Mensch", 70, "Herbert Grönemeyer")))));
+
+    Optional<TrackMatch> match =
+        broadTrackFinder.findMatch(new Track("Mensch", "Herbert Grönemeyer"));
+
+    assertThat(match).isPresent();
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:original");
+    assertThat(match.get().queryVariant()).isEqualTo(QueryVariant.QUOTED);
+    verify(
+        getRequestedFor(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("Mensch - Herbert Grönemeyer"))
+            .withQueryParam("limit", equalTo("20")));
+    verify(2, getRequestedFor(urlPathEqualTo("/v1/search")));
+  }
+
+  @Test
+  void broadSearchKeepsBestCandidateWhenNarrowQueriesFindWorse() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .willReturn(okJson(searchResult(searchItem("cover", "Mensch", 10, "Cover Band")))));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("Mensch - Herbert Grönemeyer"))
+            .willReturn(
+                okJson(
+                    searchResult(searchItem("live", "Mensch - Live", 20, "Herbert Grönemeyer")))));
+
+    Optional<TrackMatch> match =
+        broadTrackFinder.findMatch(new Track("Mensch", "Herbert Grönemeyer"));
+
+    assertThat(match.map(TrackMatch::queryVariant)).contains(QueryVariant.PLAIN);
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:live");
+    // the quoted query finds the cover, so the unquoted one is not sent
+    verify(2, getRequestedFor(urlPathEqualTo("/v1/search")));
+  }
+
+  @Test
+  void parallelSearchReturnsExactMatchWithoutWaitingForLessSpecificQueries() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search")).willReturn(okJson(searchResult()).withFixedDelay(3000)));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:\"Udo Lindenberg & Apache 207\" track:\"Komet\""))
+            .willReturn(okJson(searchResult())));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:\"Udo Lindenberg\" track:\"Komet\""))
+            .willReturn(
+                okJson(
+                    searchResult(
+                        searchItem("komet", "Komet", 78, "Udo Lindenberg", "Apache 207")))));
+
+    long start = System.nanoTime();
+    Optional<TrackMatch> match =
+        parallelTrackFinder.findMatch(new Track("Komet", "Udo Lindenberg & Apache 207"));
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(2000));
+    assertThat(match.map(TrackMatch::queryVariant)).contains(QueryVariant.FIRST_ARTIST_QUOTED);
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:komet");
+    // the less specific queries may be cancelled before they are sent
+    verify(
+        getRequestedFor(urlPathEqualTo("/v1/search"))
+            .withQueryParam(
+                "q", equalTo("artist:\"Udo Lindenberg & Apache 207\" track:\"Komet\"")));
+    verify(
+        getRequestedFor(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:\"Udo Lindenberg\" track:\"Komet\"")));
+  }
+
+  @Test
+  void parallelSearchPrefersExactMatchOfMoreSpecificQuery() {
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .willReturn(
+                okJson(searchResult(searchItem("other", "Mensch", 90, "Herbert Grönemeyer")))));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:\"Herbert Grönemeyer\" track:\"Mensch\""))
+            .willReturn(
+                okJson(searchResult(searchItem("quoted", "Mensch", 70, "Herbert Grönemeyer")))
+                    .withFixedDelay(300)));
+
+    Optional<TrackMatch> match =
+        parallelTrackFinder.findMatch(new Track("Mensch", "Herbert Grönemeyer"));
+
+    assertThat(match.map(TrackMatch::queryVariant)).contains(QueryVariant.QUOTED);
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:quoted");
+  }
+
+  @Test
+  void parallelSearchWithoutExactMatchReturnsMostSpecificResult() {
+    wireMock.register(get(urlPathEqualTo("/v1/search")).willReturn(okJson(searchResult())));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("artist:Herbert Grönemeyer track:Mensch"))
+            .willReturn(
+                okJson(searchResult(searchItem("live", "Mensch - Live", 20, "Herbert Grönemeyer")))
+                    .withFixedDelay(300)));
+    wireMock.register(
+        get(urlPathEqualTo("/v1/search"))
+            .withQueryParam("q", equalTo("Mensch - Herbert Grönemeyer"))
+            .willReturn(okJson(searchResult(searchItem("cover", "Mensch", 10, "Cover Band")))));
+
+    Optional<TrackMatch> match =
+        parallelTrackFinder.findMatch(new Track("Mensch", "Herbert Grönemeyer"));
+
+    assertThat(match.map(TrackMatch::queryVariant)).contains(QueryVariant.UNQUOTED);
+    assertThat(match.get().spotifyTrack().uri()).hasToString("spotify:track:live");
+  }
+
+  private static String searchResult(String... items) {
+    return """
+        {"tracks": {"limit": 20, "offset": 0, "total": %d, "items": [%s]}}
+        """
+        .formatted(items.length, String.join(",", items));
+  }
+
+  private static String searchItem(String id, String name, int popularity, String... artists) {
+    return """
+        {
+          "album": {"name": "Album", "images": []},
+          "artists": [%s],
+          "id": "%s",
+          "name": "%s",
+          "popularity": %d,
+          "type": "track",
+          "uri": "spotify:track:%s"
+        }
+        """
+        .formatted(
+            Arrays.stream(artists)
+                .map(artist -> "{\"name\": \"" + artist + "\"}")
+                .collect(Collectors.joining(",")),
+            id,
+            name,
+            popularity,
+            id);
+  }
+
   private static SpotifyApi buildSpotifyApiForLocalhost(int port) {
     return new SpotifyApi.Builder()
         .setScheme("http")
@@ -0,0 +1,40 @@
+package com.github.juliusd.radiohitsplaylist.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.radiohitsplaylist.Track;
+import org.junit.jupiter.api.Test;
+
+class TrackNormalizerTest {
+
+  @Test
+  void normalizeTitle_foldsCaseDiacriticsAndWhitespace() {
+    assertThat(TrackNormalizer.normalizeTitle("  Über  den\tWolken ")).isEqualTo("uber den wolken");
+    assertThat(TrackNormalizer.normalizeTitle("I'm Good (Blue)")).isEqualTo("i'm good (blue)");
+  }
+
+  @Test
+  void normalizeArtist_removesSeparatorsBetweenArtists() {
+    assertThat(TrackNormalizer.normalizeArtist("Udo Lindenberg & Apache 207"))
+        .isEqualTo("udo lindenberg apache 207");
+    assertThat(TrackNormalizer.normalizeArtist("David Guetta, Bebe Rexha"))
+        .isEqualTo("david guetta bebe rexha");
+    assertThat(TrackNormalizer.normalizeArtist("Peter Fox feat. Inéz")).isEqualTo("peter fox inez");
+    assertThat(TrackNormalizer.normalizeArtist("Ñengo Flow X Bad Bunny"))
+        .isEqualTo("nengo flow bad bunny");
+    assertThat(TrackNormalizer.normalizeArtist("Tiësto ft Karol G"))
+        .isEqualTo(TrackNormalizer.normalizeArtist("Tiesto & Karol G"));
+  }
+
+  @Test
+  void normalizeArtist_keepsSeparatorWordsAtTheEdges() {
+    assertThat(TrackNormalizer.normalizeArtist("X Ambassadors")).isEqualTo("x ambassadors");
+    assertThat(TrackNormalizer.normalizeArtist("Malcolm X")).isEqualTo("malcolm x");
+  }
+
+  @Test
+  void normalize_mapsSpellingsOfATrackToTheSameKey() {
+    assertThat(TrackNormalizer.normalize(new Track("Flowers ", "Miley  Cyrus")))
+        .isEqualTo(TrackNormalizer.normalize(new Track("flowers", "MILEY CYRUS")));
+  }
+}